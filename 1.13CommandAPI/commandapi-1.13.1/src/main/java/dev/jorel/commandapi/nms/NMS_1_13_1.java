@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.ToIntBiFunction;
 import java.util.stream.Collectors;
@@ -15,6 +16,7 @@ import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Particle;
 import org.bukkit.Sound;
+import org.bukkit.World;
 import org.bukkit.World.Environment;
 import org.bukkit.block.Biome;
 import org.bukkit.block.data.BlockData;
@@ -25,7 +27,6 @@ import org.bukkit.craftbukkit.v1_13_R2.CraftLootTable;
 import org.bukkit.craftbukkit.v1_13_R2.CraftParticle;
 import org.bukkit.craftbukkit.v1_13_R2.CraftServer;
 import org.bukkit.craftbukkit.v1_13_R2.CraftSound;
-import org.bukkit.craftbukkit.v1_13_R2.CraftWorld;
 import org.bukkit.craftbukkit.v1_13_R2.block.data.CraftBlockData;
 import org.bukkit.craftbukkit.v1_13_R2.command.ProxiedNativeCommandSender;
 import org.bukkit.craftbukkit.v1_13_R2.command.VanillaCommandWrapper;
@@ -43,6 +44,7 @@ import org.bukkit.inventory.Recipe;
 import org.bukkit.loot.LootTable;
 import org.bukkit.potion.PotionEffectType;
 
+import com.google.gson.Gson;
 import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.StringReader;
@@ -51,6 +53,7 @@ import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.tree.CommandNode;
 
 import de.tr7zw.nbtapi.NBTContainer;
 import dev.jorel.commandapi.CommandAPIHandler;
@@ -105,8 +108,8 @@ import net.minecraft.server.v1_13_R2.CustomFunction;
 import net.minecraft.server.v1_13_R2.CustomFunctionData;
 import net.minecraft.server.v1_13_R2.DimensionManager;
 import net.minecraft.server.v1_13_R2.Entity;
-import net.minecraft.server.v1_13_R2.EntityTypes;
 import net.minecraft.server.v1_13_R2.EnumDirection.EnumAxis;
+import net.minecraft.server.v1_13_R2.IChatBaseComponent;
 import net.minecraft.server.v1_13_R2.IChatBaseComponent.ChatSerializer;
 import net.minecraft.server.v1_13_R2.ICompletionProvider;
 import net.minecraft.server.v1_13_R2.IVectorPosition;
@@ -119,6 +122,13 @@ import net.minecraft.server.v1_13_R2.Vec3D;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class NMS_1_13_1 implements NMS {
+
+    // The Gson instance used by Minecraft's ChatSerializer, used to convert chat arguments
+    private static final Gson CHAT_SERIALIZER = ComponentConverter.getSerializer(ChatSerializer.class);
+
+    // Lookups for registry-backed arguments, built by buildRegistryIndex()
+    private RegistryIndex registryIndex = RegistryIndex.EMPTY;
+
     @Override
     public ArgumentType<?> _ArgumentAxis() {
         return ArgumentRotationAxis.a();
@@ -333,8 +343,7 @@ public class NMS_1_13_1 implements NMS {
 
     @Override
     public BaseComponent[] getChat(CommandContext cmdCtx, String key) throws CommandSyntaxException {
-        String resultantString = ChatSerializer.a(ArgumentChat.a(cmdCtx, key));
-        return ComponentSerializer.parse(resultantString);
+        return toBaseComponents(ArgumentChat.a(cmdCtx, key));
     }
 
     @Override
@@ -344,8 +353,15 @@ public class NMS_1_13_1 implements NMS {
 
     @Override
     public BaseComponent[] getChatComponent(CommandContext cmdCtx, String str) {
-        String resultantString = ChatSerializer.a(ArgumentChatComponent.a(cmdCtx, str));
-        return ComponentSerializer.parse((String) resultantString);
+        return toBaseComponents(ArgumentChatComponent.a(cmdCtx, str));
+    }
+
+    // Converts an NMS chat component without writing it out to a JSON string first
+    private BaseComponent[] toBaseComponents(IChatBaseComponent component) {
+        if (CHAT_SERIALIZER == null) {
+            return ComponentSerializer.parse(ChatSerializer.a(component));
+        }
+        return ComponentConverter.fromJson(CHAT_SERIALIZER.toJsonTree(component));
     }
 
     private CommandListenerWrapper getCLW(CommandContext cmdCtx) {
@@ -373,7 +389,8 @@ public class NMS_1_13_1 implements NMS {
 
     @Override
     public Enchantment getEnchantment(CommandContext cmdCtx, String str) {
-        return new CraftEnchantment(ArgumentEnchantment.a(cmdCtx, str));
+        Enchantment enchantment = registryIndex.getEnchantment(ArgumentEnchantment.a(cmdCtx, str));
+        return enchantment == null ? new CraftEnchantment(ArgumentEnchantment.a(cmdCtx, str)) : enchantment;
     }
 
     @Override
@@ -400,9 +417,8 @@ public class NMS_1_13_1 implements NMS {
     }
 
     @Override
-    public EntityType getEntityType(CommandContext cmdCtx, String str, CommandSender sender) throws CommandSyntaxException {
-        Entity entity = EntityTypes.a(((CraftWorld) getCommandSenderWorld(sender)).getHandle(), ArgumentEntitySummon.a(cmdCtx, str));
-        return entity.getBukkitEntity().getType();
+    public EntityType getEntityType(CommandContext cmdCtx, String str) throws CommandSyntaxException {
+        return registryIndex.getEntityType(ArgumentEntitySummon.a(cmdCtx, str).getKey());
     }
 
     @Override
@@ -461,27 +477,27 @@ public class NMS_1_13_1 implements NMS {
     }
 
     @Override
-    public Location getLocation(CommandContext cmdCtx, String str, LocationType locationType, CommandSender sender) throws CommandSyntaxException {
+    public Location getLocation(CommandContext cmdCtx, String str, LocationType locationType, World world) throws CommandSyntaxException {
         switch (locationType) {
             case BLOCK_POSITION:
                 BlockPosition blockPos = ArgumentPosition.a(cmdCtx, str);
-                return new Location(getCommandSenderWorld(sender), blockPos.getX(), blockPos.getY(), blockPos.getZ());
+                return new Location(world, blockPos.getX(), blockPos.getY(), blockPos.getZ());
             case PRECISE_POSITION:
                 Vec3D vecPos = ArgumentVec3.a(cmdCtx, str);
-                return new Location(getCommandSenderWorld(sender), vecPos.x, vecPos.y, vecPos.z);
+                return new Location(world, vecPos.x, vecPos.y, vecPos.z);
         }
         return null;
     }
 
     @Override
-    public Location2D getLocation2D(CommandContext cmdCtx, String key, LocationType locationType2d, CommandSender sender) throws CommandSyntaxException {
+    public Location2D getLocation2D(CommandContext cmdCtx, String key, LocationType locationType2d, World world) throws CommandSyntaxException {
         switch (locationType2d) {
             case BLOCK_POSITION:
                 ArgumentVec2I.a blockPos = ArgumentVec2I.a(cmdCtx, key);
-                return new Location2D(getCommandSenderWorld(sender), blockPos.a, blockPos.b);
+                return new Location2D(world, blockPos.a, blockPos.b);
             case PRECISE_POSITION:
                 Vec2F vecPos = ArgumentVec2.a(cmdCtx, key);
-                return new Location2D(getCommandSenderWorld(sender), vecPos.i, vecPos.j);
+                return new Location2D(world, vecPos.i, vecPos.j);
         }
         return null;
     }
@@ -500,6 +516,12 @@ public class NMS_1_13_1 implements NMS {
     @Override
     public MathOperation getMathOperation(CommandContext cmdCtx, String key) throws CommandSyntaxException {
     	ArgumentMathOperation.a result = ArgumentMathOperation.a(cmdCtx, key);
+    	MathOperation operation = registryIndex.getMathOperation(result);
+    	if (operation != null) {
+    		return operation;
+    	}
+
+    	// Operations which weren't indexed are identified by applying them to test scores
     	net.minecraft.server.v1_13_R2.Scoreboard board = new net.minecraft.server.v1_13_R2.Scoreboard();
     	ScoreboardScore tester_left = new ScoreboardScore(board, null, null);
     	ScoreboardScore tester_right = new ScoreboardScore(board, null, null);
@@ -562,7 +584,8 @@ public class NMS_1_13_1 implements NMS {
 
     @Override
     public PotionEffectType getPotionEffect(CommandContext cmdCtx, String str) throws CommandSyntaxException {
-        return new CraftPotionEffectType(ArgumentMobEffect.a(cmdCtx, str));
+        PotionEffectType potionEffect = registryIndex.getPotionEffect(ArgumentMobEffect.a(cmdCtx, str));
+        return potionEffect == null ? new CraftPotionEffectType(ArgumentMobEffect.a(cmdCtx, str)) : potionEffect;
     }
 
     @Override
@@ -613,19 +636,28 @@ public class NMS_1_13_1 implements NMS {
         return ((CraftServer) Bukkit.getServer()).getCommandMap();
     }
 
+    @Override
+    public void buildRegistryIndex() {
+        Map<String, Sound> sounds = new HashMap<>();
+        for (CraftSound sound : CraftSound.values()) {
+            try {
+                sounds.put((String) CommandAPIHandler.getField(CraftSound.class, "minecraftKey").get(sound),
+                        Sound.valueOf(sound.name()));
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            } catch (IllegalArgumentException e) {
+                // This sound has no Bukkit equivalent
+            }
+        }
+        registryIndex = RegistryIndex.build(sounds,
+                enchantment -> enchantment instanceof CraftEnchantment ? ((CraftEnchantment) enchantment).getHandle() : null,
+                potionEffect -> potionEffect instanceof CraftPotionEffectType ? ((CraftPotionEffectType) potionEffect).getHandle() : null,
+                _ArgumentMathOperation());
+    }
+
     @Override
     public Sound getSound(CommandContext cmdCtx, String key) {
-    	MinecraftKey minecraftKey = ArgumentMinecraftKeyRegistered.c(cmdCtx, key);
-		for(CraftSound sound : CraftSound.values()) {
-			try {
-				if(CommandAPIHandler.getField(CraftSound.class, "minecraftKey").get(sound).equals(minecraftKey.getKey())) {
-					return Sound.valueOf(sound.name());
-				}
-			} catch (IllegalArgumentException | IllegalAccessException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+        return registryIndex.getSound(ArgumentMinecraftKeyRegistered.c(cmdCtx, key).getKey());
     }
 
     @Override
@@ -678,6 +710,11 @@ public class NMS_1_13_1 implements NMS {
     public boolean isVanillaCommandWrapper(Command command) {
         return command instanceof VanillaCommandWrapper;
     }
+
+	@Override
+    public Object getCLWFromCommandSender(CommandSender sender) {
+        return VanillaCommandWrapper.getListener(sender);
+    }
 	
 	@Override
     public void resendPackets(Player player) {
@@ -686,6 +723,16 @@ public class NMS_1_13_1 implements NMS {
         net.minecraft.server.v1_13_R2.CommandDispatcher nmsDispatcher = craftServer.getServer().commandDispatcher;
         nmsDispatcher.a(craftPlayer.getHandle());
     }
+	
+	
+	
+	@Override
+    @SuppressWarnings("unchecked")
+    public Command wrapCommandNode(CommandNode<?> node) {
+        CraftServer craftServer = (CraftServer) Bukkit.getServer();
+        return new VanillaCommandWrapper(craftServer.getServer().vanillaCommandDispatcher,
+            (CommandNode<CommandListenerWrapper>) node);
+    }
 
 	@Override
 	public boolean validateMinecraftKeyRegistered(String argument) {
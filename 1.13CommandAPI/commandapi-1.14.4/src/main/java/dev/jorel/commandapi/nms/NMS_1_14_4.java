@@ -6,6 +6,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.ToIntBiFunction;
 import java.util.stream.Collectors;
 
@@ -16,6 +18,7 @@ import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Particle;
 import org.bukkit.Sound;
+import org.bukkit.World;
 import org.bukkit.World.Environment;
 import org.bukkit.block.Biome;
 import org.bukkit.block.data.BlockData;
@@ -26,7 +29,6 @@ import org.bukkit.craftbukkit.v1_14_R1.CraftLootTable;
 import org.bukkit.craftbukkit.v1_14_R1.CraftParticle;
 import org.bukkit.craftbukkit.v1_14_R1.CraftServer;
 import org.bukkit.craftbukkit.v1_14_R1.CraftSound;
-import org.bukkit.craftbukkit.v1_14_R1.CraftWorld;
 import org.bukkit.craftbukkit.v1_14_R1.block.data.CraftBlockData;
 import org.bukkit.craftbukkit.v1_14_R1.command.ProxiedNativeCommandSender;
 import org.bukkit.craftbukkit.v1_14_R1.command.VanillaCommandWrapper;
@@ -45,7 +47,8 @@ import org.bukkit.loot.LootTable;
 import org.bukkit.potion.PotionEffectType;
 
 import com.google.common.io.Files;
-import com.google.gson.GsonBuilder;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.StringReader;
@@ -54,6 +57,7 @@ import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.tree.CommandNode;
 
 import de.tr7zw.nbtapi.NBTContainer;
 import dev.jorel.commandapi.CommandAPIHandler;
@@ -110,9 +114,9 @@ import net.minecraft.server.v1_14_R1.CustomFunctionData;
 import net.minecraft.server.v1_14_R1.DimensionManager;
 import net.minecraft.server.v1_14_R1.Entity;
 import net.minecraft.server.v1_14_R1.EnumDirection.EnumAxis;
+import net.minecraft.server.v1_14_R1.IChatBaseComponent;
 import net.minecraft.server.v1_14_R1.IChatBaseComponent.ChatSerializer;
 import net.minecraft.server.v1_14_R1.ICompletionProvider;
-import net.minecraft.server.v1_14_R1.IRegistry;
 import net.minecraft.server.v1_14_R1.IVectorPosition;
 import net.minecraft.server.v1_14_R1.LootTableRegistry;
 import net.minecraft.server.v1_14_R1.MinecraftKey;
@@ -123,6 +127,13 @@ import net.minecraft.server.v1_14_R1.Vec3D;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class NMS_1_14_4 implements NMS {
+
+    // The Gson instance used by Minecraft's ChatSerializer, used to convert chat arguments
+    private static final Gson CHAT_SERIALIZER = ComponentConverter.getSerializer(ChatSerializer.class);
+
+    // Lookups for registry-backed arguments, built by buildRegistryIndex()
+    private RegistryIndex registryIndex = RegistryIndex.EMPTY;
+
 	
     @Override
     public ArgumentType<?> _ArgumentAxis() {
@@ -293,7 +304,10 @@ public class NMS_1_14_4 implements NMS {
 
     @Override
     public void createDispatcherFile(Object server, File file, CommandDispatcher dispatcher) throws IOException {
-        Files.write((new GsonBuilder()).setPrettyPrinting().create().toJson(ArgumentRegistry.a(dispatcher, dispatcher.getRoot())), file, StandardCharsets.UTF_8);
+        try (JsonWriter writer = new JsonWriter(Files.newWriter(file, StandardCharsets.UTF_8))) {
+            writer.setIndent("  ");
+            new Gson().toJson(ArgumentRegistry.a(dispatcher, dispatcher.getRoot()), writer);
+        }
     }
 
     @Override
@@ -338,8 +352,7 @@ public class NMS_1_14_4 implements NMS {
 
     @Override
     public BaseComponent[] getChat(CommandContext cmdCtx, String key) throws CommandSyntaxException {
-        String resultantString = ChatSerializer.a(ArgumentChat.a(cmdCtx, key));
-        return ComponentSerializer.parse(resultantString);
+        return toBaseComponents(ArgumentChat.a(cmdCtx, key));
     }
 
     @Override
@@ -349,8 +362,15 @@ public class NMS_1_14_4 implements NMS {
 
     @Override
     public BaseComponent[] getChatComponent(CommandContext cmdCtx, String str) {
-        String resultantString = ChatSerializer.a(ArgumentChatComponent.a(cmdCtx, str));
-        return ComponentSerializer.parse(resultantString);
+        return toBaseComponents(ArgumentChatComponent.a(cmdCtx, str));
+    }
+
+    // Converts an NMS chat component without writing it out to a JSON string first
+    private BaseComponent[] toBaseComponents(IChatBaseComponent component) {
+        if (CHAT_SERIALIZER == null) {
+            return ComponentSerializer.parse(ChatSerializer.a(component));
+        }
+        return ComponentConverter.fromJson(CHAT_SERIALIZER.toJsonTree(component));
     }
 
     private CommandListenerWrapper getCLW(CommandContext cmdCtx) {
@@ -382,7 +402,8 @@ public class NMS_1_14_4 implements NMS {
 
     @Override
     public Enchantment getEnchantment(CommandContext cmdCtx, String str) {
-        return new CraftEnchantment(ArgumentEnchantment.a(cmdCtx, str));
+        Enchantment enchantment = registryIndex.getEnchantment(ArgumentEnchantment.a(cmdCtx, str));
+        return enchantment == null ? new CraftEnchantment(ArgumentEnchantment.a(cmdCtx, str)) : enchantment;
     }
 
     @Override
@@ -409,9 +430,8 @@ public class NMS_1_14_4 implements NMS {
     }
 
     @Override
-    public EntityType getEntityType(CommandContext cmdCtx, String str, CommandSender sender) throws CommandSyntaxException {
-        Entity entity = IRegistry.ENTITY_TYPE.get(ArgumentEntitySummon.a(cmdCtx, str)).a(((CraftWorld) getCommandSenderWorld(sender)).getHandle());
-        return entity.getBukkitEntity().getType();
+    public EntityType getEntityType(CommandContext cmdCtx, String str) throws CommandSyntaxException {
+        return registryIndex.getEntityType(ArgumentEntitySummon.a(cmdCtx, str).getKey());
     }
 
     @Override
@@ -470,27 +490,27 @@ public class NMS_1_14_4 implements NMS {
     }
 
     @Override
-    public Location getLocation(CommandContext cmdCtx, String str, LocationType locationType, CommandSender sender) throws CommandSyntaxException {
+    public Location getLocation(CommandContext cmdCtx, String str, LocationType locationType, World world) throws CommandSyntaxException {
         switch (locationType) {
             case BLOCK_POSITION:
                 BlockPosition blockPos = ArgumentPosition.a(cmdCtx, str);
-                return new Location(getCommandSenderWorld(sender), blockPos.getX(), blockPos.getY(), blockPos.getZ());
+                return new Location(world, blockPos.getX(), blockPos.getY(), blockPos.getZ());
             case PRECISE_POSITION:
                 Vec3D vecPos = ArgumentVec3.a(cmdCtx, str);
-                return new Location(getCommandSenderWorld(sender), vecPos.x, vecPos.y, vecPos.z);
+                return new Location(world, vecPos.x, vecPos.y, vecPos.z);
         }
         return null;
     }
 
     @Override
-    public Location2D getLocation2D(CommandContext cmdCtx, String key, LocationType locationType2d, CommandSender sender) throws CommandSyntaxException {
+    public Location2D getLocation2D(CommandContext cmdCtx, String key, LocationType locationType2d, World world) throws CommandSyntaxException {
         switch (locationType2d) {
             case BLOCK_POSITION:
                 BlockPosition2D blockPos = ArgumentVec2I.a(cmdCtx, key);
-                return new Location2D(getCommandSenderWorld(sender), blockPos.a, blockPos.b);
+                return new Location2D(world, blockPos.a, blockPos.b);
             case PRECISE_POSITION:
                 Vec2F vecPos = ArgumentVec2.a(cmdCtx, key);
-                return new Location2D(getCommandSenderWorld(sender), vecPos.i, vecPos.j);
+                return new Location2D(world, vecPos.i, vecPos.j);
         }
         return null;
     }
@@ -509,6 +529,12 @@ public class NMS_1_14_4 implements NMS {
     @Override
     public MathOperation getMathOperation(CommandContext cmdCtx, String key) throws CommandSyntaxException {
     	ArgumentMathOperation.a result = ArgumentMathOperation.a(cmdCtx, key);
+    	MathOperation operation = registryIndex.getMathOperation(result);
+    	if (operation != null) {
+    		return operation;
+    	}
+
+    	// Operations which weren't indexed are identified by applying them to test scores
     	net.minecraft.server.v1_14_R1.Scoreboard board = new net.minecraft.server.v1_14_R1.Scoreboard();
     	ScoreboardScore tester_left = new ScoreboardScore(board, null, null);
     	ScoreboardScore tester_right = new ScoreboardScore(board, null, null);
@@ -571,7 +597,8 @@ public class NMS_1_14_4 implements NMS {
 
     @Override
     public PotionEffectType getPotionEffect(CommandContext cmdCtx, String str) throws CommandSyntaxException {
-        return new CraftPotionEffectType(ArgumentMobEffect.a(cmdCtx, str));
+        PotionEffectType potionEffect = registryIndex.getPotionEffect(ArgumentMobEffect.a(cmdCtx, str));
+        return potionEffect == null ? new CraftPotionEffectType(ArgumentMobEffect.a(cmdCtx, str)) : potionEffect;
     }
 
     @Override
@@ -622,19 +649,28 @@ public class NMS_1_14_4 implements NMS {
         return ((CraftServer) Bukkit.getServer()).getCommandMap();
     }
 
+    @Override
+    public void buildRegistryIndex() {
+        Map<String, Sound> sounds = new HashMap<>();
+        for (CraftSound sound : CraftSound.values()) {
+            try {
+                sounds.put((String) CommandAPIHandler.getField(CraftSound.class, "minecraftKey").get(sound),
+                        Sound.valueOf(sound.name()));
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            } catch (IllegalArgumentException e) {
+                // This sound has no Bukkit equivalent
+            }
+        }
+        registryIndex = RegistryIndex.build(sounds,
+                enchantment -> enchantment instanceof CraftEnchantment ? ((CraftEnchantment) enchantment).getHandle() : null,
+                potionEffect -> potionEffect instanceof CraftPotionEffectType ? ((CraftPotionEffectType) potionEffect).getHandle() : null,
+                _ArgumentMathOperation());
+    }
+
     @Override
     public Sound getSound(CommandContext cmdCtx, String key) {
-        MinecraftKey minecraftKey = ArgumentMinecraftKeyRegistered.c(cmdCtx, key);
-		for(CraftSound sound : CraftSound.values()) {
-			try {
-				if(CommandAPIHandler.getField(CraftSound.class, "minecraftKey").get(sound).equals(minecraftKey.getKey())) {
-					return Sound.valueOf(sound.name());
-				}
-			} catch (IllegalArgumentException | IllegalAccessException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+        return registryIndex.getSound(ArgumentMinecraftKeyRegistered.c(cmdCtx, key).getKey());
     }
 
     @Override
@@ -683,6 +719,11 @@ public class NMS_1_14_4 implements NMS {
         return command instanceof VanillaCommandWrapper;
     }
 
+	@Override
+    public Object getCLWFromCommandSender(CommandSender sender) {
+        return VanillaCommandWrapper.getListener(sender);
+    }
+
 	@Override
     public void resendPackets(Player player) {
         CraftPlayer craftPlayer = (CraftPlayer) player;
@@ -691,6 +732,16 @@ public class NMS_1_14_4 implements NMS {
 		net.minecraft.server.v1_14_R1.CommandDispatcher nmsDispatcher = craftServer.getServer().commandDispatcher;
         nmsDispatcher.a(craftPlayer.getHandle());
     }
+
+	
+
+	@Override
+    @SuppressWarnings("unchecked")
+    public Command wrapCommandNode(CommandNode<?> node) {
+        CraftServer craftServer = (CraftServer) Bukkit.getServer();
+        return new VanillaCommandWrapper(craftServer.getServer().vanillaCommandDispatcher,
+            (CommandNode<CommandListenerWrapper>) node);
+    }
 	
 	@Override
 	public boolean validateMinecraftKeyRegistered(String argument) {
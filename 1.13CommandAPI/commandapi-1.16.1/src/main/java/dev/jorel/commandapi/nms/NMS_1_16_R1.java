@@ -1,15 +1,23 @@
 package dev.jorel.commandapi.nms;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.ToIntBiFunction;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
@@ -22,6 +30,7 @@ import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Particle;
 import org.bukkit.Sound;
+import org.bukkit.World;
 import org.bukkit.World.Environment;
 import org.bukkit.block.Biome;
 import org.bukkit.block.data.BlockData;
@@ -32,7 +41,6 @@ import org.bukkit.craftbukkit.v1_16_R1.CraftLootTable;
 import org.bukkit.craftbukkit.v1_16_R1.CraftParticle;
 import org.bukkit.craftbukkit.v1_16_R1.CraftServer;
 import org.bukkit.craftbukkit.v1_16_R1.CraftSound;
-import org.bukkit.craftbukkit.v1_16_R1.CraftWorld;
 import org.bukkit.craftbukkit.v1_16_R1.block.data.CraftBlockData;
 import org.bukkit.craftbukkit.v1_16_R1.command.ProxiedNativeCommandSender;
 import org.bukkit.craftbukkit.v1_16_R1.command.VanillaCommandWrapper;
@@ -52,7 +60,8 @@ import org.bukkit.loot.LootTable;
 import org.bukkit.potion.PotionEffectType;
 
 import com.google.common.io.Files;
-import com.google.gson.GsonBuilder;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.StringReader;
@@ -61,6 +70,7 @@ import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.tree.CommandNode;
 
 import de.tr7zw.nbtapi.NBTContainer;
 import dev.jorel.commandapi.CommandAPIHandler;
@@ -119,10 +129,10 @@ import net.minecraft.server.v1_16_R1.DataPackResources;
 import net.minecraft.server.v1_16_R1.DedicatedServer;
 import net.minecraft.server.v1_16_R1.Entity;
 import net.minecraft.server.v1_16_R1.EnumDirection.EnumAxis;
+import net.minecraft.server.v1_16_R1.IChatBaseComponent;
 import net.minecraft.server.v1_16_R1.IChatBaseComponent.ChatSerializer;
 import net.minecraft.server.v1_16_R1.ICompletionProvider;
 import net.minecraft.server.v1_16_R1.IRecipe;
-import net.minecraft.server.v1_16_R1.IRegistry;
 import net.minecraft.server.v1_16_R1.IReloadableResourceManager;
 import net.minecraft.server.v1_16_R1.IVectorPosition;
 import net.minecraft.server.v1_16_R1.LootTableRegistry;
@@ -138,6 +148,12 @@ import net.minecraft.server.v1_16_R1.WorldServer;
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class NMS_1_16_R1 implements NMS {
 
+	// The Gson instance used by Minecraft's ChatSerializer, used to convert chat arguments
+	private static final Gson CHAT_SERIALIZER = ComponentConverter.getSerializer(ChatSerializer.class);
+
+	// Lookups for registry-backed arguments, built by buildRegistryIndex()
+	private RegistryIndex registryIndex = RegistryIndex.EMPTY;
+
 	@Override
 	public void reloadDataPacks()
 			throws NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
@@ -146,8 +162,15 @@ public class NMS_1_16_R1 implements NMS {
 		// Get the NMS server
 		DedicatedServer server = ((CraftServer) Bukkit.getServer()).getHandle().getServer();
 		
-		// Get previously declared recipes to be re-registered later
-		Iterator<Recipe> recipes = Bukkit.recipeIterator();
+		// Reloading datapacks removes every recipe which wasn't loaded from a
+		// datapack, so remember the recipes added by plugins to restore them later.
+		// The recipe iterator reads the live recipes, so they're copied now
+		Map<NamespacedKey, Recipe> pluginRecipes = new LinkedHashMap<>();
+		Bukkit.recipeIterator().forEachRemaining(recipe -> {
+			if (recipe instanceof Keyed && !((Keyed) recipe).getKey().getNamespace().equals(NamespacedKey.MINECRAFT)) {
+				pluginRecipes.put(((Keyed) recipe).getKey(), recipe);
+			}
+		});
 
 		// Update the commandDispatcher with the current server's commandDispatcher
 		DataPackResources datapackResources = server.dataPackResources;
@@ -183,9 +206,14 @@ public class NMS_1_16_R1 implements NMS {
 		Field a = DataPackResources.class.getDeclaredField("a");
 		a.setAccessible(true);
 
+		// Resources are prepared on Minecraft's worker threads, and applied on the
+		// server thread, in the same way as /reload
+		BlockingQueue<Runnable> serverThreadTasks = new LinkedBlockingQueue<>();
+		long reloadStart = System.nanoTime();
+
 		CompletableFuture<Unit> unit = (CompletableFuture<Unit>) a.get(null);
-		CompletableFuture<Unit> unitCompletableFuture = reloadableResourceManager.a(SystemUtils.f(), Runnable::run,
-				server.getResourcePackRepository().f(), unit);
+		CompletableFuture<Unit> unitCompletableFuture = reloadableResourceManager.a(SystemUtils.f(),
+				serverThreadTasks::add, server.getResourcePackRepository().f(), unit);
 
 		CompletableFuture<DataPackResources> completablefuture = unitCompletableFuture
 				.whenComplete((Unit u, Throwable t) -> {
@@ -199,21 +227,34 @@ public class NMS_1_16_R1 implements NMS {
 
 		// Run the completableFuture and bind tags
 		try {
+			long serverThreadTime = 0;
+			while (!completablefuture.isDone() || !serverThreadTasks.isEmpty()) {
+				Runnable task = serverThreadTasks.poll(1, TimeUnit.MILLISECONDS);
+				if (task != null) {
+					long taskStart = System.nanoTime();
+					task.run();
+					serverThreadTime += System.nanoTime() - taskStart;
+				}
+			}
+			long reloadEnd = System.nanoTime();
+
 			((DataPackResources) completablefuture.get()).i();
+			long tagsEnd = System.nanoTime();
 			
-			// Register recipes again because reloading datapacks removes all non-vanilla recipes
-			recipes.forEachRemaining(recipe -> {
-				try {
-					Bukkit.addRecipe(recipe);
-					if(recipe instanceof Keyed) {
-						CommandAPIMain.getLog().info("Re-registering recipe: " + ((Keyed) recipe).getKey());
-					}
-				} catch(Exception e) {
-					// Can't re-register registered recipes. Not an error. 
+			// Register the recipes which weren't loaded from datapacks again
+			Bukkit.recipeIterator().forEachRemaining(recipe -> {
+				if (recipe instanceof Keyed) {
+					pluginRecipes.remove(((Keyed) recipe).getKey());
 				}
 			});
+			pluginRecipes.values().forEach(Bukkit::addRecipe);
+			long recipesEnd = System.nanoTime();
 			
-			CommandAPIMain.getLog().info("Finished reloading datapacks");
+			CommandAPIMain.getLog().info("Finished reloading datapacks: loaded resources in "
+					+ TimeUnit.NANOSECONDS.toMillis(reloadEnd - reloadStart) + "ms ("
+					+ TimeUnit.NANOSECONDS.toMillis(serverThreadTime) + "ms on the server thread), bound tags in "
+					+ TimeUnit.NANOSECONDS.toMillis(tagsEnd - reloadEnd) + "ms, restored " + pluginRecipes.size()
+					+ " recipes in " + TimeUnit.NANOSECONDS.toMillis(recipesEnd - tagsEnd) + "ms");
 		} catch (Exception e) {
 			CommandAPIMain.getLog().log(Level.WARNING,
 					"Failed to load datapacks, can't proceed with normal server load procedure. Try fixing your datapacks?",
@@ -221,6 +262,57 @@ public class NMS_1_16_R1 implements NMS {
 		}
 	}
 
+	@Override
+	public boolean rebindDataPacks(Set<String> commandNames)
+			throws NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
+		DedicatedServer server = ((CraftServer) Bukkit.getServer()).getHandle().getServer();
+		DataPackResources datapackResources = server.dataPackResources;
+
+		Field b = DataPackResources.class.getDeclaredField("b");
+		b.setAccessible(true);
+		IReloadableResourceManager reloadableResourceManager = (IReloadableResourceManager) b.get(datapackResources);
+
+		// Functions which use CommandAPI or plugin commands failed to load, so only
+		// their source can tell whether they use them
+		for (MinecraftKey key : reloadableResourceManager.a("functions", path -> path.endsWith(".mcfunction"))) {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(reloadableResourceManager.a(key).b(), StandardCharsets.UTF_8))) {
+				if (FunctionCommandScanner.usesCommands(reader, commandNames)) {
+					CommandAPIMain.getLog().info("Function " + key + " uses commands which weren't available when datapacks were loaded, datapacks will be reloaded");
+					return false;
+				}
+			} catch (IOException e) {
+				CommandAPIMain.getLog().info("Couldn't read function " + key + " (" + e.getMessage() + "), datapacks will be reloaded");
+				return false;
+			}
+		}
+
+		Field modifiersField = null;
+		try {
+			modifiersField = Field.class.getDeclaredField("modifiers");
+		} catch (NoSuchFieldException e) {
+			// Java 12+ hides Field.modifiers, so the final dispatcher fields can't be set
+			CommandAPIMain.getLog().info("Couldn't rebind functions on this Java version (Field.modifiers not found), datapacks will be reloaded");
+			return false;
+		}
+		modifiersField.setAccessible(true);
+
+		// Point the loaded functions at the updated commandDispatcher, which is
+		// what reloading datapacks would have done
+		datapackResources.commandDispatcher = server.getCommandDispatcher();
+		CustomFunctionManager functionManager = datapackResources.a();
+		for (Field field : CustomFunctionManager.class.getDeclaredFields()) {
+			if (field.getType() == CommandDispatcher.class) {
+				field.setAccessible(true);
+				modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
+				field.set(functionManager, datapackResources.commandDispatcher.a());
+			}
+		}
+
+		CommandAPIMain.getLog().info("No functions use commands which weren't available when datapacks were loaded, rebound functions without reloading datapacks");
+		return true;
+	}
+
 	@Override
 	public ArgumentType<?> _ArgumentAxis() {
 		return ArgumentRotationAxis.a();
@@ -388,8 +480,10 @@ public class NMS_1_16_R1 implements NMS {
 
 	@Override
 	public void createDispatcherFile(Object server, File file, CommandDispatcher dispatcher) throws IOException {
-		Files.write((new GsonBuilder()).setPrettyPrinting().create()
-				.toJson(ArgumentRegistry.a(dispatcher, dispatcher.getRoot())), file, StandardCharsets.UTF_8);
+		try (JsonWriter writer = new JsonWriter(Files.newWriter(file, StandardCharsets.UTF_8))) {
+			writer.setIndent("  ");
+			new Gson().toJson(ArgumentRegistry.a(dispatcher, dispatcher.getRoot()), writer);
+		}
 	}
 
 	@Override
@@ -421,7 +515,7 @@ public class NMS_1_16_R1 implements NMS {
 	@Override
 	public Biome getBiome(CommandContext cmdCtx, String key) {
 		MinecraftKey minecraftKey = (MinecraftKey) cmdCtx.getArgument(key, MinecraftKey.class);
-		return Biome.valueOf(minecraftKey.getKey().toUpperCase());
+		return registryIndex.getBiome(minecraftKey.getKey());
 	}
 
 	@Override
@@ -436,8 +530,7 @@ public class NMS_1_16_R1 implements NMS {
 
 	@Override
 	public BaseComponent[] getChat(CommandContext cmdCtx, String key) throws CommandSyntaxException {
-		String resultantString = ChatSerializer.a(ArgumentChat.a(cmdCtx, key));
-		return ComponentSerializer.parse(resultantString);
+		return toBaseComponents(ArgumentChat.a(cmdCtx, key));
 	}
 
 	@Override
@@ -447,8 +540,15 @@ public class NMS_1_16_R1 implements NMS {
 
 	@Override
 	public BaseComponent[] getChatComponent(CommandContext cmdCtx, String str) {
-		String resultantString = ChatSerializer.a(ArgumentChatComponent.a(cmdCtx, str));
-		return ComponentSerializer.parse((String) resultantString);
+		return toBaseComponents(ArgumentChatComponent.a(cmdCtx, str));
+	}
+
+	// Converts an NMS chat component without writing it out to a JSON string first
+	private BaseComponent[] toBaseComponents(IChatBaseComponent component) {
+		if (CHAT_SERIALIZER == null) {
+			return ComponentSerializer.parse(ChatSerializer.a(component));
+		}
+		return ComponentConverter.fromJson(CHAT_SERIALIZER.toJsonTree(component));
 	}
 
 	private CommandListenerWrapper getCLW(CommandContext cmdCtx) {
@@ -472,7 +572,8 @@ public class NMS_1_16_R1 implements NMS {
 
 	@Override
 	public Enchantment getEnchantment(CommandContext cmdCtx, String str) {
-		return new CraftEnchantment(ArgumentEnchantment.a(cmdCtx, str));
+		Enchantment enchantment = registryIndex.getEnchantment(ArgumentEnchantment.a(cmdCtx, str));
+		return enchantment == null ? new CraftEnchantment(ArgumentEnchantment.a(cmdCtx, str)) : enchantment;
 	}
 
 	@Override
@@ -503,11 +604,8 @@ public class NMS_1_16_R1 implements NMS {
 	}
 
 	@Override
-	public EntityType getEntityType(CommandContext cmdCtx, String str, CommandSender sender)
-			throws CommandSyntaxException {
-		Entity entity = IRegistry.ENTITY_TYPE.get(ArgumentEntitySummon.a(cmdCtx, str))
-				.a(((CraftWorld) getCommandSenderWorld(sender)).getHandle());
-		return entity.getBukkitEntity().getType();
+	public EntityType getEntityType(CommandContext cmdCtx, String str) throws CommandSyntaxException {
+		return registryIndex.getEntityType(ArgumentEntitySummon.a(cmdCtx, str).getKey());
 	}
 
 	@Override
@@ -563,29 +661,29 @@ public class NMS_1_16_R1 implements NMS {
 	}
 
 	@Override
-	public Location getLocation(CommandContext cmdCtx, String str, LocationType locationType, CommandSender sender)
+	public Location getLocation(CommandContext cmdCtx, String str, LocationType locationType, World world)
 			throws CommandSyntaxException {
 		switch (locationType) {
 		case BLOCK_POSITION:
 			BlockPosition blockPos = ArgumentPosition.a(cmdCtx, str);
-			return new Location(getCommandSenderWorld(sender), blockPos.getX(), blockPos.getY(), blockPos.getZ());
+			return new Location(world, blockPos.getX(), blockPos.getY(), blockPos.getZ());
 		case PRECISE_POSITION:
 			Vec3D vecPos = ArgumentVec3.a(cmdCtx, str);
-			return new Location(getCommandSenderWorld(sender), vecPos.x, vecPos.y, vecPos.z);
+			return new Location(world, vecPos.x, vecPos.y, vecPos.z);
 		}
 		return null;
 	}
 
 	@Override
 	public Location2D getLocation2D(CommandContext cmdCtx, String key, LocationType locationType2d,
-			CommandSender sender) throws CommandSyntaxException {
+			World world) throws CommandSyntaxException {
 		switch (locationType2d) {
 		case BLOCK_POSITION:
 			BlockPosition2D blockPos = ArgumentVec2I.a(cmdCtx, key);
-			return new Location2D(getCommandSenderWorld(sender), blockPos.a, blockPos.b);
+			return new Location2D(world, blockPos.a, blockPos.b);
 		case PRECISE_POSITION:
 			Vec2F vecPos = ArgumentVec2.a(cmdCtx, key);
-			return new Location2D(getCommandSenderWorld(sender), vecPos.i, vecPos.j);
+			return new Location2D(world, vecPos.i, vecPos.j);
 		}
 		return null;
 	}
@@ -631,6 +729,12 @@ public class NMS_1_16_R1 implements NMS {
 	@Override
 	public MathOperation getMathOperation(CommandContext cmdCtx, String key) throws CommandSyntaxException {
 		ArgumentMathOperation.a result = ArgumentMathOperation.a(cmdCtx, key);
+		MathOperation operation = registryIndex.getMathOperation(result);
+		if (operation != null) {
+			return operation;
+		}
+
+		// Operations which weren't indexed are identified by applying them to test scores
 		net.minecraft.server.v1_16_R1.Scoreboard board = new net.minecraft.server.v1_16_R1.Scoreboard();
 		ScoreboardScore tester_left = new ScoreboardScore(board, null, null);
 		ScoreboardScore tester_right = new ScoreboardScore(board, null, null);
@@ -700,7 +804,8 @@ public class NMS_1_16_R1 implements NMS {
 
 	@Override
 	public PotionEffectType getPotionEffect(CommandContext cmdCtx, String str) throws CommandSyntaxException {
-		return new CraftPotionEffectType(ArgumentMobEffect.a(cmdCtx, str));
+		PotionEffectType potionEffect = registryIndex.getPotionEffect(ArgumentMobEffect.a(cmdCtx, str));
+		return potionEffect == null ? new CraftPotionEffectType(ArgumentMobEffect.a(cmdCtx, str)) : potionEffect;
 	}
 
 	@Override
@@ -765,19 +870,27 @@ public class NMS_1_16_R1 implements NMS {
 	}
 
 	@Override
-	public Sound getSound(CommandContext cmdCtx, String key) {
-		MinecraftKey minecraftKey = ArgumentMinecraftKeyRegistered.e(cmdCtx, key);
+	public void buildRegistryIndex() {
+		Map<String, Sound> sounds = new HashMap<>();
 		for (CraftSound sound : CraftSound.values()) {
 			try {
-				if (CommandAPIHandler.getField(CraftSound.class, "minecraftKey").get(sound)
-						.equals(minecraftKey.getKey())) {
-					return Sound.valueOf(sound.name());
-				}
-			} catch (IllegalArgumentException | IllegalAccessException e1) {
-				e1.printStackTrace();
+				sounds.put((String) CommandAPIHandler.getField(CraftSound.class, "minecraftKey").get(sound),
+						Sound.valueOf(sound.name()));
+			} catch (IllegalAccessException e) {
+				e.printStackTrace();
+			} catch (IllegalArgumentException e) {
+				// This sound has no Bukkit equivalent
 			}
 		}
-		return null;
+		registryIndex = RegistryIndex.build(sounds,
+				enchantment -> enchantment instanceof CraftEnchantment ? ((CraftEnchantment) enchantment).getHandle() : null,
+				potionEffect -> potionEffect instanceof CraftPotionEffectType ? ((CraftPotionEffectType) potionEffect).getHandle() : null,
+				_ArgumentMathOperation());
+	}
+
+	@Override
+	public Sound getSound(CommandContext cmdCtx, String key) {
+		return registryIndex.getSound(ArgumentMinecraftKeyRegistered.e(cmdCtx, key).getKey());
 	}
 
 	@Override
@@ -828,6 +941,11 @@ public class NMS_1_16_R1 implements NMS {
 		return command instanceof VanillaCommandWrapper;
 	}
 
+	@Override
+	public Object getCLWFromCommandSender(CommandSender sender) {
+		return VanillaCommandWrapper.getListener(sender);
+	}
+
 	@Override
 	public void resendPackets(Player player) {
 		CraftPlayer craftPlayer = (CraftPlayer) player;
@@ -836,6 +954,16 @@ public class NMS_1_16_R1 implements NMS {
 		nmsDispatcher.a(craftPlayer.getHandle());
 	}
 
+	
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Command wrapCommandNode(CommandNode<?> node) {
+		CraftServer craftServer = (CraftServer) Bukkit.getServer();
+		return new VanillaCommandWrapper(craftServer.getServer().vanillaCommandDispatcher,
+			(CommandNode<CommandListenerWrapper>) node);
+	}
+
 	@Override
 	public boolean validateMinecraftKeyRegistered(String argument) {
 		try {
@@ -0,0 +1,27 @@
+package dev.jorel.commandapi;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+/**
+ * A pre-bound conversion of a single argument from its brigadier representation
+ * into its standard Bukkit type (as defined in NMS.java). Resolvers are compiled
+ * once when a command is registered, so executing a command doesn't have to
+ * look up what kind of argument it is dealing with.
+ */
+@FunctionalInterface
+interface ArgumentResolver {
+
+	/**
+	 * Resolves this argument from the provided command context
+	 *
+	 * @param cmdCtx the command context
+	 * @param ctx    the execution context of this invocation, which holds the
+	 *               command sender and its world
+	 * @return the standard Bukkit type, or null if this argument does not produce
+	 *         a value (such as a literal)
+	 * @throws CommandSyntaxException if the argument cannot be converted
+	 */
+	Object resolve(CommandContext<?> cmdCtx, ExecutionContext ctx) throws CommandSyntaxException;
+
+}
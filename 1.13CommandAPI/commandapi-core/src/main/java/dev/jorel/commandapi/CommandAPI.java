@@ -1,8 +1,16 @@
 package dev.jorel.commandapi;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
 
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
 import com.mojang.brigadier.LiteralMessage;
 import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 
@@ -18,7 +26,7 @@ import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
  */
 public class CommandAPI {
 	
-	static boolean canRegister = true;
+	static volatile boolean canRegister = true;
 	private static CommandAPIHandler handler;
 
 	static {
@@ -39,13 +47,77 @@ public class CommandAPI {
 		//Sort out permissions after the server has finished registering them all
 		handler.fixPermissions();
 		
+		if(CommandAPIMain.getConfiguration().hasVerboseOutput()) {
+			CommandAPIMain.getLog().info("Reused " + handler.getReusedNodePartCount() + " requirements, argument types and suggestion indexes between command nodes");
+		}
+		
+		//Produce the command_registration.json file for debug purposes
+		if(CommandAPIMain.getConfiguration().willCreateDispatcherFile()) {
+			try {
+				handler.writeDispatcherFile(CommandAPIMain.getDispatcherFile());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		
 		try {
-			CommandAPIHandler.getNMS().reloadDataPacks();
+			//Reloading datapacks is slow, so it's only done if a function uses a command
+			//which wasn't available when datapacks were first loaded
+			if(!CommandAPIMain.getConfiguration().hasLightweightDatapackRebind()
+					|| !CommandAPIHandler.getNMS().rebindDataPacks(handler.getNonVanillaCommandNames())) {
+				CommandAPIHandler.getNMS().reloadDataPacks();
+			}
+			CommandAPIHandler.getNMS().buildRegistryIndex();
 		} catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e) {
 			e.printStackTrace();
 		}
 	}
 	
+	/**
+	 * Writes a JSON file describing every command which has been registered
+	 * with the server
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeDispatcherFile(File file) throws IOException {
+		handler.writeDispatcherFile(file);
+	}
+	
+	/**
+	 * Analyses the size of the server's command tree, and estimates the size of
+	 * the commands packet which is sent to a command sender
+	 * @param sender the command sender to estimate the commands packet for
+	 * @return a report on the size of the command tree
+	 */
+	public static CommandTreeReport analyseCommandTree(CommandSender sender) {
+		return handler.analyseCommandTree(sender);
+	}
+	
+	/**
+	 * Records that the commands packet has been sent to a player
+	 * @param player the player who was sent the commands packet
+	 */
+	static void commandsSent(Player player) {
+		handler.commandsSent(player);
+	}
+	
+	/**
+	 * Sends the commands packet to a player again if the command tree or the
+	 * player's permissions have changed since it was last sent to them
+	 * @param player the player to send the commands packet to
+	 */
+	static void resendPacketsIfChanged(Player player) {
+		handler.resendPacketsIfChanged(player);
+	}
+	
+	/**
+	 * Forgets the commands packet which was sent to a player
+	 * @param player the player who left the server
+	 */
+	static void forgetCommandsSent(Player player) {
+		handler.forgetCommandsSent(player);
+	}
+	
 	/**
 	 * Forces a command to return a success value of 0
 	 * @param message Description of the error message
@@ -63,6 +135,16 @@ public class CommandAPI {
 		return CommandAPI.canRegister;
 	}
 	
+	/**
+	 * Returns the number of suggestion requests which were answered with no
+	 * suggestions, because a newer request from the same player replaced them
+	 * before they could be computed
+	 * @return the number of dropped suggestion requests since the server started
+	 */
+	public static long getDroppedSuggestionRequests() {
+		return SuggestionThrottle.getDroppedRequests();
+	}
+	
 	/**
 	 * Unregisters a command
 	 * @param command the name of the command to unregister
@@ -80,52 +162,121 @@ public class CommandAPI {
 	 */
 	public static void unregister(String command, boolean force) {
 		if(!canRegister) {
-			CommandAPIMain.getLog().warning("Unexpected unregistering of /" + command + ", as server is loaded! Unregistering anyway, but this can lead to unstable results!");
+			CommandAPIMain.getLog().warning("Unexpected unregistering of /" + command + ", as server is loaded! Unregistering anyway, but this can lead to unstable results! Use unregisterAtRuntime() instead");
 		}
 		handler.unregister(command, force);
 	}
 	
+	/**
+	 * Unregisters many commands in one pass, which is faster than unregistering
+	 * them one at a time
+	 * 
+	 * @param commands the names of the commands to unregister
+	 * @param force    if true, attempt to unregister all instances of the commands
+	 *                 across all plugins as well as minecraft, bukkit and spigot
+	 */
+	public static void unregister(Collection<String> commands, boolean force) {
+		if(!canRegister) {
+			CommandAPIMain.getLog().warning("Unexpected unregistering of " + commands.size() + " commands, as server is loaded! Unregistering anyway, but this can lead to unstable results! Use unregisterAtRuntime() instead");
+		}
+		handler.unregister(commands, force);
+	}
+	
+	/**
+	 * Unregisters a command after the server has loaded. The command is removed
+	 * on the next tick, together with any other commands registered or
+	 * unregistered at runtime during this tick, and the commands packet is only
+	 * sent again to players who could see the command. Once the server has
+	 * loaded, this can be called from any thread
+	 * 
+	 * @param command the name of the command to unregister
+	 * @param force   if true, attempt to unregister all instances of the command
+	 *                across all plugins as well as minecraft, bukkit and spigot
+	 */
+	public static void unregisterAtRuntime(String command, boolean force) {
+		if(canRegister) {
+			unregister(command, force);
+		} else {
+			handler.unregisterAtRuntime(Collections.singletonList(command), force);
+		}
+	}
+	
+	/**
+	 * Unregisters many commands after the server has loaded. The commands are
+	 * removed on the next tick, together with any other commands registered or
+	 * unregistered at runtime during this tick, and the commands packet is only
+	 * sent again to players who could see any of the commands. Once the server
+	 * has loaded, this can be called from any thread
+	 * 
+	 * @param commands the names of the commands to unregister
+	 * @param force    if true, attempt to unregister all instances of the commands
+	 *                 across all plugins as well as minecraft, bukkit and spigot
+	 */
+	public static void unregisterAtRuntime(Collection<String> commands, boolean force) {
+		if(canRegister) {
+			unregister(commands, force);
+		} else {
+			handler.unregisterAtRuntime(new ArrayList<>(commands), force);
+		}
+	}
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	static void register(String commandName, CommandPermission permissions, String[] aliases, LinkedHashMap<String, Argument> args, CustomCommandExecutor executor) {
 		if(!canRegister) {
-			CommandAPIMain.getLog().severe("Cannot register command /" + commandName + ", because the server has finished loading!");
+			CommandAPIMain.getLog().severe("Cannot register command /" + commandName + ", because the server has finished loading! Use registerAtRuntime() instead");
 			return;
 		}
 		try {
-
-			//Sanitize commandNames
-			if(commandName == null || commandName.length() == 0) {
-				throw new InvalidCommandNameException(commandName);
+			handler.register(commandName, permissions, aliases, validateArguments(commandName, permissions, args), executor);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	static void registerAtRuntime(String commandName, CommandPermission permissions, String[] aliases, LinkedHashMap<String, Argument> args, CustomCommandExecutor executor) {
+		if(canRegister) {
+			register(commandName, permissions, aliases, args, executor);
+			return;
+		}
+		try {
+			handler.registerAtRuntime(commandName, permissions, aliases, validateArguments(commandName, permissions, args), executor);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	//Checks the arguments of a command, and returns a copy of them with permissions assigned
+	private static LinkedHashMap<String, Argument> validateArguments(String commandName, CommandPermission permissions, LinkedHashMap<String, Argument> args) throws InvalidCommandNameException, GreedyArgumentException {
+		//Sanitize commandNames
+		if(commandName == null || commandName.length() == 0) {
+			throw new InvalidCommandNameException(commandName);
+		}
+		
+		//Make a local copy of args to deal with
+		@SuppressWarnings("unchecked")
+		LinkedHashMap<String, Argument> copyOfArgs = args == null ? new LinkedHashMap<>() : (LinkedHashMap<String, Argument>) args.clone();
+		
+		//if args contains a GreedyString && args.getLast != GreedyString
+		long numGreedyArgs = copyOfArgs.values().stream().filter(arg -> arg instanceof IGreedyArgument).count();
+		if(numGreedyArgs >= 1) {
+			//A GreedyString has been found
+			if(!(copyOfArgs.values().toArray()[copyOfArgs.size() - 1] instanceof IGreedyArgument)) {
+				throw new GreedyArgumentException();
 			}
 			
-			//Make a local copy of args to deal with
-			@SuppressWarnings("unchecked")
-			LinkedHashMap<String, Argument> copyOfArgs = args == null ? new LinkedHashMap<>() : (LinkedHashMap<String, Argument>) args.clone();
-			
-			//if args contains a GreedyString && args.getLast != GreedyString
-			long numGreedyArgs = copyOfArgs.values().stream().filter(arg -> arg instanceof IGreedyArgument).count();
-			if(numGreedyArgs >= 1) {
-				//A GreedyString has been found
-				if(!(copyOfArgs.values().toArray()[copyOfArgs.size() - 1] instanceof IGreedyArgument)) {
-					throw new GreedyArgumentException();
-				}
-				
-				if(numGreedyArgs > 1) {
-					throw new GreedyArgumentException();
-				}
+			if(numGreedyArgs > 1) {
+				throw new GreedyArgumentException();
 			}
-			
-			//Reassign permissions to arguments if not declared
-			for(Entry<String, Argument> entry : copyOfArgs.entrySet()) {
-				if(entry.getValue().getArgumentPermission() == null) {
-					entry.setValue(entry.getValue().withPermission(permissions));
-				}
+		}
+		
+		//Reassign permissions to arguments if not declared
+		for(Entry<String, Argument> entry : copyOfArgs.entrySet()) {
+			if(entry.getValue().getArgumentPermission() == null) {
+				entry.setValue(entry.getValue().withPermission(permissions));
 			}
-			
-			handler.register(commandName, permissions, aliases, copyOfArgs, executor);
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
+		
+		return copyOfArgs;
 	}
 }
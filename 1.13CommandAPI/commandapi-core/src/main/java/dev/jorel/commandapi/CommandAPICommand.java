@@ -11,6 +11,8 @@ import dev.jorel.commandapi.executors.ConsoleCommandExecutor;
 import dev.jorel.commandapi.executors.ConsoleResultingCommandExecutor;
 import dev.jorel.commandapi.executors.EntityCommandExecutor;
 import dev.jorel.commandapi.executors.EntityResultingCommandExecutor;
+import dev.jorel.commandapi.executors.LazyCommandExecutor;
+import dev.jorel.commandapi.executors.LazyResultingCommandExecutor;
 import dev.jorel.commandapi.executors.PlayerCommandExecutor;
 import dev.jorel.commandapi.executors.PlayerResultingCommandExecutor;
 import dev.jorel.commandapi.executors.ProxyCommandExecutor;
@@ -198,6 +200,30 @@ public class CommandAPICommand {
 		return this;
 	}
 	
+	// Lazy command executor
+	
+	/**
+	 * Adds an executor to the current command builder. Unlike other executors,
+	 * each argument is only converted when it is first accessed
+	 * @param executor A lambda of type <code>(CommandSender, LazyArguments) -> ()</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesLazy(LazyCommandExecutor executor) {
+		this.executor.addLazyExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Adds an executor to the current command builder. Unlike other executors,
+	 * each argument is only converted when it is first accessed
+	 * @param executor A lambda of type <code>(CommandSender, LazyArguments) -> int</code> that will be executed when the command is run
+	 * @return this command builder
+	 */
+	public CommandAPICommand executesLazy(LazyResultingCommandExecutor executor) {
+		this.executor.addLazyResultingExecutor(executor);
+		return this;
+	}
+	
 	/**
 	 * Registers the command
 	 */
@@ -205,8 +231,25 @@ public class CommandAPICommand {
 		if(this.executor.isEmpty()) {
 			throw new EmptyExecutorException();
 		} else {
+			executor.freeze();
 			CommandAPI.register(commandName, permission, aliases, args, executor);
 		}
 	}
 	
+	/**
+	 * Registers the command after the server has loaded. The command is
+	 * registered on the next tick, together with any other commands registered
+	 * or unregistered at runtime during this tick, and the commands packet is
+	 * only sent again to players who can see the command. Once the server has
+	 * loaded, this can be called from any thread
+	 */
+	public void registerAtRuntime() {
+		if(this.executor.isEmpty()) {
+			throw new EmptyExecutorException();
+		} else {
+			executor.freeze();
+			CommandAPI.registerAtRuntime(commandName, permission, aliases, args, executor);
+		}
+	}
+	
 }
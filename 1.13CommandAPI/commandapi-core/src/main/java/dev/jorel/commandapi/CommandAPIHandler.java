@@ -5,22 +5,35 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.entity.Player;
 import org.bukkit.permissions.Permission;
+import org.bukkit.plugin.java.JavaPlugin;
 
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
@@ -40,14 +53,18 @@ import com.mojang.brigadier.tree.LiteralCommandNode;
 import dev.jorel.commandapi.arguments.Argument;
 import dev.jorel.commandapi.arguments.CustomArgument;
 import dev.jorel.commandapi.arguments.CustomArgument.CustomArgumentException;
+import dev.jorel.commandapi.arguments.CustomArgument.CustomArgumentParser;
 import dev.jorel.commandapi.arguments.CustomArgument.MessageBuilder;
 import dev.jorel.commandapi.arguments.EntitySelectorArgument;
+import dev.jorel.commandapi.arguments.EntitySelectorArgument.EntitySelector;
 import dev.jorel.commandapi.arguments.ICustomProvidedArgument;
 import dev.jorel.commandapi.arguments.LiteralArgument;
 import dev.jorel.commandapi.arguments.Location2DArgument;
 import dev.jorel.commandapi.arguments.LocationArgument;
 import dev.jorel.commandapi.arguments.LocationType;
 import dev.jorel.commandapi.arguments.ScoreHolderArgument;
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+import dev.jorel.commandapi.executors.LazyArguments;
 import dev.jorel.commandapi.nms.NMS;
 
 /**
@@ -59,6 +76,14 @@ import dev.jorel.commandapi.nms.NMS;
 @SuppressWarnings({ "rawtypes", "unchecked" })
 public final class CommandAPIHandler {
 	private TreeMap<String, CommandPermission> permissionsToFix;
+	private NodeInterner interner;
+	private Map<String, String> commandOwners;
+	private CommandPacketProfiles packetProfiles;
+	private TreeUpdateQueue treeUpdates;
+	private NamespaceIndex namespaceIndex;
+	private NamespaceIndex activeNamespaceIndex;
+	private Set<String> vanillaCommandNames;
+	private Map<CommandNode, CommandNode> aliasTargets;
 
 	// Cache maps
 	private static Map<ClassCache, Field> fields;
@@ -146,8 +171,27 @@ public final class CommandAPIHandler {
 		fields = new HashMap<>();
 		methods = new HashMap<>();
 		permissionsToFix = new TreeMap<>();
+		commandOwners = new HashMap<>();
+		aliasTargets = new IdentityHashMap<>();
+		namespaceIndex = new NamespaceIndex();
+		activeNamespaceIndex = new NamespaceIndex();
+		interner = new NodeInterner(
+				permission -> (Object clw) -> permissionCheck(nms.getCommandSenderForCLW(clw), permission));
 
 		this.dispatcher = nms.getBrigadierDispatcher(nmsServer);
+
+		// Datapacks are loaded before any plugin commands are registered, so
+		// functions can only use the commands which are in the tree now
+		vanillaCommandNames = new HashSet<>();
+		for (Object child : dispatcher.getRoot().getChildren()) {
+			vanillaCommandNames.add(((CommandNode) child).getName().toLowerCase(Locale.ROOT));
+		}
+		packetProfiles = new CommandPacketProfiles(() -> getActiveDispatcher().getRoot());
+		treeUpdates = new TreeUpdateQueue(() -> getActiveDispatcher().getRoot(), nms::getCLWFromCommandSender,
+				nms::resendPackets);
+
+		// Index registries (sounds, enchantments etc.) for argument conversions
+		nms.buildRegistryIndex();
 	}
 
 	/**
@@ -159,28 +203,173 @@ public final class CommandAPIHandler {
 	 *                    have been registered by Minecraft, Bukkit or Spigot etc.
 	 */
 	protected void unregister(String commandName, boolean force) {
-		try {
-			if (CommandAPIMain.getConfiguration().hasVerboseOutput()) {
-				CommandAPIMain.getLog().info("Unregistering command /" + commandName);
-			}
+		unregister(Collections.singletonList(commandName), force);
+	}
 
+	/**
+	 * Unregisters commands from the NMS command graph in one pass.
+	 * 
+	 * @param commandNames the names of the commands to unregister
+	 * @param force        whether the unregistration system should attempt to
+	 *                     remove all instances of the commands, regardless of
+	 *                     whether they have been registered by Minecraft, Bukkit
+	 *                     or Spigot etc.
+	 */
+	protected void unregister(Collection<String> commandNames, boolean force) {
+		try {
 			// Get the child nodes from the loaded dispatcher class
 			Field children = getField(CommandNode.class, "children");
 			Map<String, CommandNode<?>> commandNodeChildren = (Map<String, CommandNode<?>>) children
 					.get(dispatcher.getRoot());
 
+			for (String commandName : commandNames) {
+				if (CommandAPIMain.getConfiguration().hasVerboseOutput()) {
+					CommandAPIMain.getLog().info("Unregistering command /" + commandName);
+				}
+
+				if (force) {
+					// Remove them by force
+					namespaceIndex.takeNamespacedNames(commandNodeChildren, commandName)
+							.forEach(commandNodeChildren::remove);
+				}
+
+				// Otherwise, just remove them normally
+				commandNodeChildren.remove(commandName);
+			}
+			namespaceIndex.update(commandNodeChildren);
+			packetProfiles.invalidate();
+		} catch (SecurityException | IllegalArgumentException | IllegalAccessException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the dispatcher which players' commands are sent from. When the
+	 * server has loaded, Bukkit replaces the dispatcher that commands are
+	 * registered to with one which contains every command in Bukkit's command
+	 * map.
+	 * 
+	 * @return the dispatcher which players' commands are sent from
+	 */
+	private CommandDispatcher getActiveDispatcher() {
+		return nms.getBrigadierDispatcher(nmsServer);
+	}
+
+	/**
+	 * Queues the registration of a command after the server has loaded. The
+	 * command is registered on the next tick, along with any other queued
+	 * changes, and is then sent to the players who can see it.
+	 */
+	void registerAtRuntime(String commandName, CommandPermission permissions, String[] aliases,
+			final LinkedHashMap<String, Argument> args, CustomCommandExecutor executor) {
+		List<String> commandNames = new ArrayList<>();
+		commandNames.add(commandName);
+		commandNames.addAll(Arrays.asList(aliases));
+
+		treeUpdates.queue(commandNames, () -> {
+			try {
+				register(commandName, permissions, aliases, args, executor);
+			} catch (Exception e) {
+				e.printStackTrace();
+				return;
+			}
+
+			CommandDispatcher activeDispatcher = getActiveDispatcher();
+			Map<String, org.bukkit.command.Command> knownCommands = getKnownCommands();
+			activeNamespaceIndex.invalidate();
+			for (String name : commandNames) {
+				CommandNode node = dispatcher.getRoot().getChild(name);
+				if (activeDispatcher != dispatcher) {
+					removeChildren(activeDispatcher.getRoot(), Arrays.asList(name));
+					activeDispatcher.getRoot().addChild(node);
+				}
+
+				// Wrap the command in the same way as Bukkit, with the permission
+				// that fixPermissions() would have given it
+				org.bukkit.command.Command command = nms.wrapCommandNode(node);
+				CommandPermission permission = permissionsToFix.get(name.toLowerCase());
+				if (permission.equals(CommandPermission.NONE)) {
+					command.setPermission("");
+				} else if (permission.getPermission() != null) {
+					command.setPermission(permission.getPermission());
+				}
+				knownCommands.remove(name);
+				knownCommands.remove("minecraft:" + name);
+				nms.getSimpleCommandMap().register("minecraft", command);
+			}
+		});
+	}
+
+	/**
+	 * Queues the unregistration of commands after the server has loaded. The
+	 * commands are unregistered on the next tick, along with any other queued
+	 * changes, and are then removed from the players who could see them.
+	 * 
+	 * @param commandNames the names of the commands to unregister
+	 * @param force        whether to also unregister every namespaced version of
+	 *                     the commands
+	 */
+	void unregisterAtRuntime(Collection<String> commandNames, boolean force) {
+		// The namespaced versions are looked up when the change is applied, so
+		// commands added before then are found too
+		List<String> removedNames = new ArrayList<>();
+		treeUpdates.queue(() -> {
+			removedNames.clear();
+			removedNames.addAll(commandNames);
 			if (force) {
-				// Remove them by force
-				List<String> keysToRemove = new ArrayList<>();
-				commandNodeChildren.keySet().stream().filter(s -> s.contains(":"))
-						.filter(s -> s.split(":")[1].equalsIgnoreCase(commandName)).forEach(keysToRemove::add);
-				keysToRemove.forEach(commandNodeChildren::remove);
+				Map<String, CommandNode<?>> activeChildren = getChildren(getActiveDispatcher().getRoot());
+				for (String commandName : commandNames) {
+					removedNames.addAll(activeNamespaceIndex.takeNamespacedNames(activeChildren, commandName));
+				}
 			}
+			return removedNames;
+		}, () -> {
+			unregister(commandNames, force);
+			CommandDispatcher activeDispatcher = getActiveDispatcher();
+			if (activeDispatcher != dispatcher) {
+				removeChildren(activeDispatcher.getRoot(), removedNames);
+				activeNamespaceIndex.update(getChildren(activeDispatcher.getRoot()));
+			}
+			Map<String, org.bukkit.command.Command> knownCommands = getKnownCommands();
+			removedNames.forEach(knownCommands::remove);
+		});
+	}
 
-			// Otherwise, just remove them normally
-			commandNodeChildren.remove(commandName);
-		} catch (SecurityException | IllegalArgumentException | IllegalAccessException e) {
+	private Map<String, CommandNode<?>> getChildren(CommandNode node) {
+		try {
+			return (Map<String, CommandNode<?>>) getField(CommandNode.class, "children").get(node);
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			e.printStackTrace();
+			return new HashMap<>();
+		}
+	}
+
+	// Removes children from a node, including its indexes of literals and arguments
+	private void removeChildren(CommandNode node, Collection<String> names) {
+		try {
+			Map<String, CommandNode<?>> children = (Map<String, CommandNode<?>>) getField(CommandNode.class, "children")
+					.get(node);
+			Map<String, CommandNode<?>> literals = (Map<String, CommandNode<?>>) getField(CommandNode.class, "literals")
+					.get(node);
+			Map<String, CommandNode<?>> arguments = (Map<String, CommandNode<?>>) getField(CommandNode.class,
+					"arguments").get(node);
+			for (String name : names) {
+				children.remove(name);
+				literals.remove(name);
+				arguments.remove(name);
+			}
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private Map<String, org.bukkit.command.Command> getKnownCommands() {
+		try {
+			return (Map<String, org.bukkit.command.Command>) getField(SimpleCommandMap.class, "knownCommands")
+					.get(nms.getSimpleCommandMap());
+		} catch (IllegalArgumentException | IllegalAccessException e) {
 			e.printStackTrace();
+			return new HashMap<>();
 		}
 	}
 
@@ -196,127 +385,153 @@ public final class CommandAPIHandler {
 	private Command generateCommand(LinkedHashMap<String, Argument> args, CustomCommandExecutor executor)
 			throws CommandSyntaxException {
 
+		// Compile the arguments once, so executing the command only has to run them
+		ArgumentResolver[] resolvers = compileResolvers(args, null, false);
+
 		// Generate our command from executor
 		return (cmdCtx) -> {
+			// The sender (and anything derived from it) is resolved at most once per invocation
+			ExecutionContext ctx = new ExecutionContext(nms, cmdCtx);
+			return executor.execute(ctx, resolvers);
+		};
+	}
 
-			// Array for arguments for executor
-			List<Object> argList = new ArrayList<>();
-
-			// Populate array
-			for (Entry<String, Argument> entry : args.entrySet()) {
-				Object result = parseArgument(cmdCtx, entry.getKey(), entry.getValue());
-				if(result != null) {
-					argList.add(result);
-				}
+	/**
+	 * Compiles a set of arguments into an array of resolvers, in the order of
+	 * declaration.
+	 * 
+	 * @param args            the arguments to compile
+	 * @param stopAt          the name of the argument to stop compiling at
+	 *                        (exclusive), or null to compile every argument
+	 * @param includeLiterals whether literal arguments should have a resolver
+	 *                        (which always resolves to null)
+	 * @return an array of resolvers for the provided arguments
+	 */
+	static ArgumentResolver[] compileResolvers(LinkedHashMap<String, Argument> args, String stopAt,
+			boolean includeLiterals) {
+		List<ArgumentResolver> resolvers = new ArrayList<>(args.size());
+		for (Entry<String, Argument> entry : args.entrySet()) {
+			if (entry.getKey().equals(stopAt)) {
+				break;
 			}
-
-			return executor.execute(nms.getSenderForCommand(cmdCtx), argList.toArray());
-		};
+			if (includeLiterals || !(entry.getValue() instanceof LiteralArgument)) {
+				resolvers.add(compileResolver(entry.getKey(), entry.getValue()));
+			}
+		}
+		return resolvers.toArray(new ArgumentResolver[0]);
 	}
-	
+
 	/**
-	 * Parses an argument and converts it into its standard Bukkit type (as defined in NMS.java)
-	 * @param type the argument type
-	 * @param cmdCtx the command context
-	 * @param key the key (declared in arguments)
+	 * Compiles an argument into a resolver which converts it into its standard
+	 * Bukkit type (as defined in NMS.java). Anything that can be determined from
+	 * the argument itself (such as its location type or entity selector) is bound
+	 * here, instead of every time the command is run
+	 * 
+	 * @param key   the key (declared in arguments)
 	 * @param value the value (the argument declared in arguments)
-	 * @param sender the command sender
-	 * @return the standard Bukkit type
-	 * @throws CommandSyntaxException
+	 * @return a resolver that yields the standard Bukkit type
 	 */
-	private Object parseArgument(CommandContext cmdCtx, String key, Argument value) throws CommandSyntaxException {
-		CommandSender sender = nms.getSenderForCommand(cmdCtx);
+	private static ArgumentResolver compileResolver(String key, Argument value) {
 		switch (value.getArgumentType()) {
 		case ADVANCEMENT:
-			return nms.getAdvancement(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getAdvancement(cmdCtx, key);
 		case AXIS:
-			return nms.getAxis(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getAxis(cmdCtx, key);
 		case BIOME:
-			return nms.getBiome(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getBiome(cmdCtx, key);
 		case BLOCKSTATE:
-			return nms.getBlockState(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getBlockState(cmdCtx, key);
 		case CHAT:
-			return nms.getChat(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getChat(cmdCtx, key);
 		case CHATCOLOR:
-			return nms.getChatColor(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getChatColor(cmdCtx, key);
 		case CHAT_COMPONENT:
-			return nms.getChatComponent(cmdCtx, key);
-		case CUSTOM:
-			CustomArgument arg = (CustomArgument) value;
-			String customresult = (String) cmdCtx.getArgument(key, String.class);
-			try {
-				return arg.getParser().apply(customresult);
-			} catch (CustomArgumentException e) {
-				throw e.toCommandSyntax(customresult, cmdCtx);
-			} catch (Exception e) {
-				String errorMsg = new MessageBuilder("Error in executing command ").appendFullInput().append(" - ")
-						.appendArgInput().appendHere().toString().replace("%input%", customresult)
-						.replace("%finput%", cmdCtx.getInput());
-				throw new SimpleCommandExceptionType(() -> {
-					return errorMsg;
-				}).create();
-			}
+			return (cmdCtx, ctx) -> nms.getChatComponent(cmdCtx, key);
+		case CUSTOM: {
+			CustomArgumentParser<?> parser = ((CustomArgument<?>) value).getParser();
+			return (cmdCtx, ctx) -> {
+				String customresult = (String) cmdCtx.getArgument(key, String.class);
+				try {
+					return parser.apply(customresult);
+				} catch (CustomArgumentException e) {
+					throw e.toCommandSyntax(customresult, cmdCtx);
+				} catch (Exception e) {
+					String errorMsg = new MessageBuilder("Error in executing command ").appendFullInput().append(" - ")
+							.appendArgInput().appendHere().toString().replace("%input%", customresult)
+							.replace("%finput%", cmdCtx.getInput());
+					throw new SimpleCommandExceptionType(() -> {
+						return errorMsg;
+					}).create();
+				}
+			};
+		}
 		case ENCHANTMENT:
-			return nms.getEnchantment(cmdCtx, key);
-		case ENTITY_SELECTOR:
-			EntitySelectorArgument argument = (EntitySelectorArgument) value;
-			return nms.getEntitySelector(cmdCtx, key, argument.getEntitySelector());
+			return (cmdCtx, ctx) -> nms.getEnchantment(cmdCtx, key);
+		case ENTITY_SELECTOR: {
+			EntitySelector selector = ((EntitySelectorArgument) value).getEntitySelector();
+			return (cmdCtx, ctx) -> nms.getEntitySelector(cmdCtx, key, selector);
+		}
 		case ENTITY_TYPE:
-			return nms.getEntityType(cmdCtx, key, sender);
+			return (cmdCtx, ctx) -> nms.getEntityType(cmdCtx, key);
 		case ENVIRONMENT:
-			return nms.getDimension(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getDimension(cmdCtx, key);
 		case FLOAT_RANGE:
-			return nms.getFloatRange(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getFloatRange(cmdCtx, key);
 		case FUNCTION:
-			return nms.getFunction(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getFunction(cmdCtx, key);
 		case INT_RANGE:
-			return nms.getIntRange(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getIntRange(cmdCtx, key);
 		case ITEMSTACK:
-			return nms.getItemStack(cmdCtx, key);
-		case LITERAL:
-			return null;
-		case LOCATION:
+			return (cmdCtx, ctx) -> nms.getItemStack(cmdCtx, key);
+		case LOCATION: {
 			LocationType locationType = ((LocationArgument) value).getLocationType();
-			return nms.getLocation(cmdCtx, key, locationType, sender);
-		case LOCATION_2D:
+			return (cmdCtx, ctx) -> nms.getLocation(cmdCtx, key, locationType, ctx.getWorld());
+		}
+		case LOCATION_2D: {
 			LocationType locationType2d = ((Location2DArgument) value).getLocationType();
-			return nms.getLocation2D(cmdCtx, key, locationType2d, sender);
+			return (cmdCtx, ctx) -> nms.getLocation2D(cmdCtx, key, locationType2d, ctx.getWorld());
+		}
 		case LOOT_TABLE:
-			return nms.getLootTable(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getLootTable(cmdCtx, key);
 		case MATH_OPERATION:
-			return nms.getMathOperation(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getMathOperation(cmdCtx, key);
 		case NBT_COMPOUND:
-			return nms.getNBTCompound(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getNBTCompound(cmdCtx, key);
 		case OBJECTIVE:
-			return nms.getObjective(cmdCtx, key, sender);
+			return (cmdCtx, ctx) -> nms.getObjective(cmdCtx, key, ctx.getSender());
 		case OBJECTIVE_CRITERIA:
-			return nms.getObjectiveCriteria(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getObjectiveCriteria(cmdCtx, key);
 		case PARTICLE:
-			return nms.getParticle(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getParticle(cmdCtx, key);
 		case PLAYER:
-			return nms.getPlayer(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getPlayer(cmdCtx, key);
 		case POTION_EFFECT:
-			return nms.getPotionEffect(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getPotionEffect(cmdCtx, key);
 		case RECIPE:
-			return nms.getRecipe(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getRecipe(cmdCtx, key);
 		case ROTATION:
-			return nms.getRotation(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getRotation(cmdCtx, key);
 		case SCORE_HOLDER:
-			ScoreHolderArgument scoreHolderArgument = (ScoreHolderArgument) value;
-			return scoreHolderArgument.isSingle() ? nms.getScoreHolderSingle(cmdCtx, key)
-					: nms.getScoreHolderMultiple(cmdCtx, key);
+			if (((ScoreHolderArgument) value).isSingle()) {
+				return (cmdCtx, ctx) -> nms.getScoreHolderSingle(cmdCtx, key);
+			} else {
+				return (cmdCtx, ctx) -> nms.getScoreHolderMultiple(cmdCtx, key);
+			}
 		case SCOREBOARD_SLOT:
-			return nms.getScoreboardSlot(cmdCtx, key);
-		case SIMPLE_TYPE:
-			return cmdCtx.getArgument(key, value.getPrimitiveType());
+			return (cmdCtx, ctx) -> nms.getScoreboardSlot(cmdCtx, key);
+		case SIMPLE_TYPE: {
+			Class<?> primitiveType = value.getPrimitiveType();
+			return (cmdCtx, ctx) -> cmdCtx.getArgument(key, primitiveType);
+		}
 		case SOUND:
-			return nms.getSound(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getSound(cmdCtx, key);
 		case TEAM:
-			return nms.getTeam(cmdCtx, key, sender);
+			return (cmdCtx, ctx) -> nms.getTeam(cmdCtx, key, ctx.getSender());
 		case TIME:
-			return nms.getTime(cmdCtx, key);
+			return (cmdCtx, ctx) -> nms.getTime(cmdCtx, key);
+		case LITERAL:
 		default:
-			return null;
+			return (cmdCtx, ctx) -> null;
 		}
 	}
 
@@ -356,7 +571,7 @@ public final class CommandAPIHandler {
 			}
 		}
 
-		return (Object clw) -> permissionCheck(nms.getCommandSenderForCLW(clw), finalPermission);
+		return interner.getRequirement(finalPermission);
 	}
 
 	/**
@@ -449,6 +664,19 @@ public final class CommandAPIHandler {
 
 		Command command = generateCommand(args, executor);
 
+		// Remember which plugin registered this command
+		String owner = getOwnerName(executor);
+		commandOwners.put(commandName.toLowerCase(), owner);
+		for (String alias : aliases) {
+			commandOwners.put(alias.toLowerCase(), owner);
+		}
+
+		// Registering over an alias must not change the command it was an alias of
+		unshareAlias(commandName, null);
+
+		// Brigadier merges nodes with the same name, even if their types differ
+		interner.checkMergedArguments(this.dispatcher.getRoot(), commandName, args);
+
 		/*
 		 * The innermost argument needs to be connected to the executor. Then that
 		 * argument needs to be connected to the previous argument etc. Then the first
@@ -464,15 +692,7 @@ public final class CommandAPIHandler {
 					.requires(generatePermissions(commandName, permissions)).executes(command));
 
 			// Register aliases
-			for (String alias : aliases) {
-				if (CommandAPIMain.getConfiguration().hasVerboseOutput()) {
-					CommandAPIMain.getLog().info("Registering alias /" + alias + " -> " + resultantNode.getName());
-				}
-				// TODO: What if we just do
-				// getLiteralArgumentBuilder(alias).redirect(resultantNode)?
-				this.dispatcher.register((LiteralArgumentBuilder) getLiteralArgumentBuilder(alias)
-						.requires(generatePermissions(alias, permissions)).executes(command));
-			}
+			registerAliases(resultantNode, aliases, permissions, command);
 		} else {
 
 			// List of keys for reverse iteration
@@ -536,25 +756,223 @@ public final class CommandAPIHandler {
 					.requires(generatePermissions(commandName, permissions)).then(outer));
 
 			// Register aliases
-			for (String alias : aliases) {
-				if (CommandAPIMain.getConfiguration().hasVerboseOutput()) {
-					CommandAPIMain.getLog().info("Registering alias /" + alias + " -> " + resultantNode.getName());
+			registerAliases(resultantNode, aliases, permissions, null);
+		}
+		packetProfiles.invalidate();
+		namespaceIndex.invalidate();
+	}
+
+	/**
+	 * Registers the aliases of a command as literal nodes which share the
+	 * command's argument nodes, so each alias is a single node instead of a copy
+	 * of the command's arguments. This only saves memory on the server: the
+	 * commands packet writes a shared node once for every parent it has, so the
+	 * packet is as large as it would be with copies. Redirects aren't used,
+	 * because the commands packet can only refer to a redirect's target once the
+	 * target has been written, and Bukkit doesn't keep the order of top level
+	 * commands.
+	 * 
+	 * @param resultantNode the node which was registered for the command
+	 * @param aliases       the aliases of the command
+	 * @param permissions   the permission required to run the command
+	 * @param command       the executor to run if an alias is used without
+	 *                      arguments, or null if the command requires arguments
+	 */
+	private void registerAliases(LiteralCommandNode resultantNode, String[] aliases, CommandPermission permissions,
+			Command command) {
+		// Brigadier merges the registered node into an existing node with the same
+		// name, so the children have to come from the node which is actually in the
+		// tree
+		CommandNode target = this.dispatcher.getRoot().getChild(resultantNode.getName());
+
+		for (String alias : aliases) {
+			if (CommandAPIMain.getConfiguration().hasVerboseOutput()) {
+				CommandAPIMain.getLog().info("Registering alias /" + alias + " -> " + resultantNode.getName());
+			}
+
+			LiteralArgumentBuilder aliasBuilder = (LiteralArgumentBuilder) getLiteralArgumentBuilder(alias)
+					.requires(generatePermissions(alias, permissions));
+			if (command != null) {
+				aliasBuilder.executes(command);
+			}
+			unshareAlias(alias, target);
+			this.dispatcher.register(aliasBuilder);
+
+			CommandNode aliasNode = this.dispatcher.getRoot().getChild(alias);
+			for (Object child : target.getChildren()) {
+				// Re-registering an alias would otherwise merge a shared node into itself
+				if (aliasNode.getChild(((CommandNode) child).getName()) != child) {
+					aliasNode.addChild((CommandNode) child);
 				}
-				this.dispatcher.register((LiteralArgumentBuilder) getLiteralArgumentBuilder(alias)
-						.requires(generatePermissions(alias, permissions)).then(outer));
 			}
+			aliasTargets.put(aliasNode, target);
 		}
+	}
 
-		// Produce the commandDispatch.json file for debug purposes
-		if (CommandAPIMain.getConfiguration().willCreateDispatcherFile()) {
-			File file = CommandAPIMain.getDispatcherFile();
-			try {
-				file.createNewFile();
-			} catch (IOException e) {
-				e.printStackTrace(System.out);
+	/**
+	 * Gives an alias its own copies of the nodes it shares with its command.
+	 * Brigadier merges a registered node into the existing nodes with the same
+	 * names, so registering another command (or an alias of another command)
+	 * under the alias's name would otherwise add arguments to the original
+	 * command as well.
+	 * 
+	 * @param name   the name of the top level node which is about to be
+	 *               registered
+	 * @param target the command which the node is about to be an alias of, or
+	 *               null if it's about to be registered as a command
+	 */
+	private void unshareAlias(String name, CommandNode target) {
+		CommandNode aliasNode = this.dispatcher.getRoot().getChild(name);
+		if (aliasNode == null || !aliasTargets.containsKey(aliasNode) || aliasTargets.get(aliasNode) == target) {
+			return;
+		}
+		aliasTargets.remove(aliasNode);
+
+		List<CommandNode> shared = new ArrayList<>(aliasNode.getChildren());
+		List<String> names = new ArrayList<>();
+		for (CommandNode child : shared) {
+			names.add(child.getName());
+		}
+		removeChildren(aliasNode, names);
+		for (CommandNode child : shared) {
+			aliasNode.addChild(copyNode(child));
+		}
+	}
+
+	// Copies a node and everything below it
+	private static CommandNode copyNode(CommandNode node) {
+		CommandNode copy = node.createBuilder().build();
+		for (Object child : node.getChildren()) {
+			copy.addChild(copyNode((CommandNode) child));
+		}
+		return copy;
+	}
+
+	// Finds the plugin which declared a command's executors
+	private String getOwnerName(CustomCommandExecutor executor) {
+		try {
+			return JavaPlugin.getProvidingPlugin(executor.getOwnerClass()).getName();
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			return "unknown";
+		}
+	}
+
+	/**
+	 * Analyses the size of the command tree, and of the commands packet which is
+	 * sent to a command sender.
+	 * 
+	 * @param sender the command sender to estimate the commands packet for
+	 * @return a report on the size of the command tree
+	 */
+	CommandTreeReport analyseCommandTree(CommandSender sender) {
+		return CommandTreeAnalyser.analyse(getActiveDispatcher().getRoot(), nms.getCLWFromCommandSender(sender),
+				sendsNamespacedCommands(), name -> {
+			String owner = commandOwners.get(name.toLowerCase());
+			if (owner != null) {
+				return owner;
 			}
+			// Namespaced commands, such as minecraft:tp or essentials:afk
+			if (name.contains(":")) {
+				return name.substring(0, name.indexOf(':'));
+			}
+			PluginCommand command = Bukkit.getPluginCommand(name);
+			return command == null ? "minecraft" : command.getPlugin().getName();
+		});
+	}
+
+	// Spigot can be configured not to send namespaced commands (such as
+	// minecraft:tp) to players
+	private static boolean sendsNamespacedCommands() {
+		try {
+			return Class.forName("org.spigotmc.SpigotConfig").getField("sendNamespaced").getBoolean(null);
+		} catch (ReflectiveOperationException | SecurityException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Records that the commands packet has been sent to a player
+	 * 
+	 * @param player the player who was sent the commands packet
+	 */
+	void commandsSent(Player player) {
+		packetProfiles.sent(player.getUniqueId(), nms.getCLWFromCommandSender(player));
+	}
+
+	/**
+	 * Sends the commands packet to a player again, unless the command tree and
+	 * the player's permissions haven't changed since it was last sent to them
+	 * 
+	 * @param player the player to send the commands packet to
+	 */
+	void resendPacketsIfChanged(Player player) {
+		if (packetProfiles.hasChanged(player.getUniqueId(), nms.getCLWFromCommandSender(player))) {
+			nms.resendPackets(player);
+		}
+	}
+
+	/**
+	 * Forgets the commands packet which was sent to a player
+	 * 
+	 * @param player the player who left the server
+	 */
+	void forgetCommandsSent(Player player) {
+		packetProfiles.remove(player.getUniqueId());
+	}
+
+	/**
+	 * @return the names and aliases of every command which wasn't available when
+	 *         the server first loaded datapacks, or which the CommandAPI has
+	 *         changed since, in lower case. This includes commands registered by
+	 *         the CommandAPI, Bukkit and other plugins
+	 */
+	Set<String> getNonVanillaCommandNames() {
+		Set<String> names = new HashSet<>();
+		for (String name : getKnownCommands().keySet()) {
+			names.add(name.toLowerCase(Locale.ROOT));
+		}
+		for (Object child : getActiveDispatcher().getRoot().getChildren()) {
+			names.add(((CommandNode) child).getName().toLowerCase(Locale.ROOT));
+		}
+		names.removeIf(name -> vanillaCommandNames
+				.contains(name.startsWith("minecraft:") ? name.substring("minecraft:".length()) : name));
+
+		// The CommandAPI's commands may replace or add branches to vanilla
+		// commands (such as give or tp), which functions have been parsed without
+		for (String name : commandOwners.keySet()) {
+			names.add(name.toLowerCase(Locale.ROOT));
+		}
+		for (String name : permissionsToFix.keySet()) {
+			names.add(name.toLowerCase(Locale.ROOT));
+		}
+		return names;
+	}
+
+	/**
+	 * @return the number of requirements, argument types and suggestion indexes
+	 *         which are shared between command nodes
+	 */
+	int getReusedNodePartCount() {
+		return interner.getReusedCount();
+	}
 
-			nms.createDispatcherFile(nmsServer, file, dispatcher);
+	/**
+	 * Writes a JSON file describing every command registered in the dispatcher.
+	 * The file is written to a temporary file first and then moved into place, so
+	 * the file is never left partially written.
+	 * 
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeDispatcherFile(File file) throws IOException {
+		File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+		temp.getParentFile().mkdirs();
+		nms.createDispatcherFile(nmsServer, temp, dispatcher);
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
 		}
 	}
 
@@ -563,12 +981,21 @@ public final class CommandAPIHandler {
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
 
 	// NMS ICompletionProvider.a()
-	private CompletableFuture<Suggestions> getSuggestionsBuilder(SuggestionsBuilder builder, String[] array) {
+	private CompletableFuture<Suggestions> getSuggestionsBuilder(SuggestionsBuilder builder, String[] array,
+			int limit) {
+		return getSuggestionsBuilder(builder, Arrays.asList(array).iterator(), limit);
+	}
+
+	// Stops consuming suggestions once the limit (if any) has been reached
+	private CompletableFuture<Suggestions> getSuggestionsBuilder(SuggestionsBuilder builder,
+			Iterator<String> suggestions, int limit) {
 		String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
-		for (int i = 0; i < array.length; i++) {
-			String str = array[i];
+		int count = 0;
+		while ((limit <= 0 || count < limit) && suggestions.hasNext()) {
+			String str = suggestions.next();
 			if (str.toLowerCase(Locale.ROOT).startsWith(remaining)) {
 				builder.suggest(str);
+				count++;
 			}
 		}
 		return builder.buildFuture();
@@ -598,7 +1025,7 @@ public final class CommandAPIHandler {
 	private LiteralArgumentBuilder<?> getLiteralArgumentBuilderArgument(String commandName,
 			CommandPermission permission) {
 		return LiteralArgumentBuilder.literal(commandName)
-				.requires(clw -> permissionCheck(nms.getCommandSenderForCLW(clw), permission));
+				.requires(interner.getRequirement(permission));
 	}
 
 	// Gets a RequiredArgumentBuilder for a DynamicSuggestedStringArgument
@@ -607,36 +1034,110 @@ public final class CommandAPIHandler {
 			CommandPermission permission) {
 
 		// If there are no changes to the default suggestions, return it as normal
-		if (type.getOverriddenSuggestions() == null) {
-			return RequiredArgumentBuilder.argument(argumentName, (ArgumentType<T>) type.getRawType())
-					.requires(clw -> permissionCheck(nms.getCommandSenderForCLW(clw), permission));
+		if (type.getOverriddenSuggestions() == null && type.getAsyncSuggestions() == null
+				&& type.getStreamingSuggestions() == null) {
+			return RequiredArgumentBuilder
+					.argument(argumentName, interner.getArgumentType((ArgumentType<T>) type.getRawType()))
+					.requires(interner.getRequirement(permission));
+		}
+
+		// Fixed suggestions don't depend on anything, so they can be indexed once
+		else if (type.getStaticSuggestions() != null) {
+			SuggestionIndex index = interner.getSuggestionIndex(type.getStaticSuggestions());
+			return getRequiredArgumentBuilderWithProvider(argumentName, type.getRawType(), permission,
+					(context, builder) -> index.suggest(builder, type.getMaxSuggestions()));
+		}
+
+		// Asynchronous suggestions are resolved on this thread, but computed on the
+		// CommandAPI's suggestion threads
+		else if (type.getAsyncSuggestions() != null) {
+			PreviousArgumentCache previousArgumentCache = new PreviousArgumentCache(
+					compileResolvers(args, argumentName, true), type.getSuggestionTimeout());
+			SuggestionCache cache = SuggestionCache.of(type);
+			return getRequiredArgumentBuilderWithProvider(argumentName, type.getRawType(), permission,
+					throttle((CommandContext context, SuggestionsBuilder builder) -> {
+						ExecutionContext ctx = new ExecutionContext(nms, context);
+						CommandSender sender = ctx.getBukkitSender();
+						Object cacheKey = cache == null ? null : cache.getKey(sender, builder);
+						String[] cached = cache == null ? null : cache.get(cacheKey);
+						if (cached != null) {
+							return getSuggestionsBuilder(builder, cached, type.getMaxSuggestions());
+						}
+
+						LazyArguments previousArguments = previousArgumentCache.resolve(ctx, builder);
+						return SuggestionExecutor
+								.supply(() -> type.getAsyncSuggestions().apply(sender, previousArguments),
+										type.getSuggestionTimeout())
+								.thenCompose(suggestions -> {
+									// Don't cache suggestions from providers which failed or timed out
+									if (cache != null && suggestions != SuggestionExecutor.NO_SUGGESTIONS) {
+										cache.put(cacheKey, suggestions);
+									}
+									return getSuggestionsBuilder(builder, suggestions, type.getMaxSuggestions());
+								});
+					}));
+		}
+
+		// Streaming suggestions are only consumed until the limit is reached
+		else if (type.getStreamingSuggestions() != null) {
+			PreviousArgumentCache previousArgumentCache = new PreviousArgumentCache(
+					compileResolvers(args, argumentName, true));
+			return getRequiredArgumentBuilderWithProvider(argumentName, type.getRawType(), permission,
+					throttle((CommandContext context, SuggestionsBuilder builder) -> {
+						ExecutionContext ctx = new ExecutionContext(nms, context);
+						LazyArguments previousArguments = previousArgumentCache.resolve(ctx, builder);
+						try (Stream<String> suggestions = type.getStreamingSuggestions().getSuggestions(
+								ctx.getBukkitSender(), previousArguments,
+								builder.getRemaining().toLowerCase(Locale.ROOT))) {
+							return getSuggestionsBuilder(builder, suggestions.iterator(), type.getMaxSuggestions());
+						}
+					}));
 		}
 
 		// Otherwise, we have to handle arguments of the form BiFunction<CommandSender,
 		// Object[], String[]>
 		else {
+			PreviousArgumentCache previousArgumentCache = new PreviousArgumentCache(
+					compileResolvers(args, argumentName, true));
+			SuggestionCache cache = SuggestionCache.of(type);
 			return getRequiredArgumentBuilderWithProvider(argumentName, type.getRawType(), permission,
-					(CommandContext context, SuggestionsBuilder builder) -> {
-						// Populate Object[], which is our previously filled arguments
-						List<Object> previousArguments = new ArrayList<>();
-
-						for (String s : args.keySet()) {
-							if (s.equals(argumentName)) {
-								break;
+					throttle((CommandContext context, SuggestionsBuilder builder) -> {
+						ExecutionContext ctx = new ExecutionContext(nms, context);
+						CommandSender sender = ctx.getBukkitSender();
+						Object cacheKey = cache == null ? null : cache.getKey(sender, builder);
+						String[] suggestions = cache == null ? null : cache.get(cacheKey);
+
+						if (suggestions == null) {
+							// Populate Object[], which is our previously filled arguments. This is
+							// skipped for suggestions which only depend on the command sender
+							Object[] previousArguments;
+							try {
+								previousArguments = type.suggestionsUsePreviousArguments()
+										? previousArgumentCache.resolve(ctx, builder).toArray()
+										: new Object[0];
+							} catch (WrapperCommandSyntaxException e) {
+								throw e.getException();
+							}
+							suggestions = type.getOverriddenSuggestions().apply(sender, previousArguments);
+							if (cache != null) {
+								cache.put(cacheKey, suggestions);
 							}
-							previousArguments.add(parseArgument(context, s, args.get(s)));
 						}
-						return getSuggestionsBuilder(builder, type.getOverriddenSuggestions()
-								.apply(nms.getCommandSenderForCLW(context.getSource()), previousArguments.toArray()));
-					});
+						return getSuggestionsBuilder(builder, suggestions, type.getMaxSuggestions());
+					}));
 		}
 	}
 
+	// Limits how often each player can run a suggestion provider
+	private SuggestionProvider throttle(SuggestionProvider provider) {
+		return SuggestionThrottle.throttle(provider, context -> nms.getCommandSenderForCLW(context.getSource()));
+	}
+
 	// Gets a RequiredArgumentBuilder for an argument, given a SuggestionProvider
 	private <T> RequiredArgumentBuilder<?, T> getRequiredArgumentBuilderWithProvider(String argumentName,
 			ArgumentType<T> type, CommandPermission permission, SuggestionProvider provider) {
-		return RequiredArgumentBuilder.argument(argumentName, type)
-				.requires(clw -> permissionCheck(nms.getCommandSenderForCLW(clw), permission)).suggests(provider);
+		return RequiredArgumentBuilder.argument(argumentName, interner.getArgumentType(type))
+				.requires(interner.getRequirement(permission)).suggests(provider);
 	}
 
 	//////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -695,5 +1196,23 @@ public final class CommandAPIHandler {
 			this.clazz = clazz;
 			this.name = name;
 		}
+
+		// Keys are created on every lookup, so they have to be equal by value
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ClassCache)) {
+				return false;
+			}
+			ClassCache other = (ClassCache) obj;
+			return clazz.equals(other.clazz) && name.equals(other.name);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * clazz.hashCode() + name.hashCode();
+		}
 	}
 }
@@ -8,11 +8,15 @@ import java.util.Map.Entry;
 import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -38,7 +42,16 @@ public class CommandAPIMain extends JavaPlugin implements Listener {
 	
 	@EventHandler(priority = EventPriority.MONITOR)
 	public void onPlayerJoin(PlayerJoinEvent e) {
-		CommandAPIHandler.getNMS().resendPackets(e.getPlayer());
+		//The commands packet was already sent when the player logged in, so it
+		//only has to be sent again if join listeners changed their permissions
+		CommandAPI.resendPacketsIfChanged(e.getPlayer());
+	}
+	
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent e) {
+		SuggestionThrottle.remove(e.getPlayer().getUniqueId());
+		PreviousArgumentCache.remove(e.getPlayer().getUniqueId());
+		CommandAPI.forgetCommandsSent(e.getPlayer());
 	}
 	
 	@Override
@@ -70,6 +83,50 @@ public class CommandAPIMain extends JavaPlugin implements Listener {
 		}, 0L);
         
         getServer().getPluginManager().registerEvents(this, this);
+        
+        //PlayerCommandSendEvent isn't available on every 1.13 server. Without it,
+        //the commands packet is always sent again when a player joins
+        try {
+        	Class.forName("org.bukkit.event.player.PlayerCommandSendEvent");
+        	getServer().getPluginManager().registerEvents(new CommandSendListener(), this);
+        } catch (ClassNotFoundException e) {
+        	getLog().info("PlayerCommandSendEvent not found, the commands packet will be resent to every joining player");
+        }
+	}
+	
+	/**
+	 * Handles /commandtree [player], which shows the size of the command tree and
+	 * of the commands packet sent to a player
+	 */
+	@Override
+	public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+		CommandSender target = sender;
+		if(args.length > 0) {
+			target = Bukkit.getPlayer(args[0]);
+			if(target == null) {
+				sender.sendMessage(ChatColor.RED + "Player '" + args[0] + "' was not found");
+				return true;
+			}
+		}
+		
+		CommandTreeReport report = CommandAPI.analyseCommandTree(target);
+		sender.sendMessage(ChatColor.GOLD + "Command tree: " + ChatColor.WHITE + report.getTotalNodes() + " nodes");
+		sender.sendMessage(ChatColor.GOLD + "Commands packet for " + target.getName() + ": " + ChatColor.WHITE
+				+ report.getVisibleNodes() + " nodes, ~" + report.getEstimatedPacketSize() + " bytes");
+		
+		sender.sendMessage(ChatColor.GOLD + "Largest commands:");
+		report.getNodesPerCommand().entrySet().stream().limit(10)
+			.forEach(entry -> sender.sendMessage("  /" + entry.getKey() + ": " + entry.getValue() + " nodes"));
+		
+		sender.sendMessage(ChatColor.GOLD + "Nodes per plugin:");
+		report.getNodesPerPlugin()
+			.forEach((plugin, nodes) -> sender.sendMessage("  " + plugin + ": " + nodes + " nodes"));
+		return true;
+	}
+	
+	@Override
+	public void onDisable() {
+		SuggestionExecutor.shutdown();
 	}
 	
 	/** 
@@ -85,12 +142,24 @@ public class CommandAPIMain extends JavaPlugin implements Listener {
 		//Create a command_registration.json file
 		private final boolean createDispatcherFile;
 		
+		//Number of threads used to run asynchronous suggestions
+		private final int asyncSuggestionThreads;
+		
+		//Minimum number of milliseconds between a player's suggestion requests for an argument
+		private final long suggestionRequestInterval;
+		
+		//Rebind datapack functions instead of reloading datapacks when possible
+		private final boolean lightweightDatapackRebind;
+		
 		//List of plugins to convert
 		private final Map<Plugin, String[]> pluginsToConvert; 
 				
 		public Config(FileConfiguration fileConfig) {
 			verboseOutput = fileConfig.getBoolean("verbose-outputs");
 			createDispatcherFile = fileConfig.getBoolean("create-dispatcher-json");
+			asyncSuggestionThreads = fileConfig.getInt("async-suggestion-threads");
+			suggestionRequestInterval = fileConfig.getLong("suggestion-request-interval");
+			lightweightDatapackRebind = fileConfig.getBoolean("lightweight-datapack-rebind");
 			pluginsToConvert = new HashMap<>();
 			
 			for(Map<?, ?> map : fileConfig.getMapList("plugins-to-convert")) {
@@ -121,6 +190,18 @@ public class CommandAPIMain extends JavaPlugin implements Listener {
 			return createDispatcherFile;
 		}
 		
+		public int getAsyncSuggestionThreads() {
+			return asyncSuggestionThreads;
+		}
+		
+		public long getSuggestionRequestInterval() {
+			return suggestionRequestInterval;
+		}
+		
+		public boolean hasLightweightDatapackRebind() {
+			return lightweightDatapackRebind;
+		}
+		
 	}
 	
 }
@@ -0,0 +1,153 @@
+package dev.jorel.commandapi;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.mojang.brigadier.tree.CommandNode;
+
+/**
+ * Keeps track of the commands packet which was last sent to each player. The
+ * part of the command tree that a player can see only depends on the results
+ * of the tree's requirements, and most nodes share a handful of requirements
+ * (one per permission), so a player's permission profile is the set of
+ * distinct requirements which the player passes. If neither the command tree
+ * nor a player's permission profile has changed since the player was last sent
+ * the commands packet, sending it again would produce the same packet.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+final class CommandPacketProfiles {
+
+	private final Supplier<CommandNode> root;
+	private CommandNode currentRoot = null;
+
+	// Incremented whenever the CommandAPI changes the command tree
+	private int treeVersion = 0;
+
+	// The distinct requirements of the command tree, built when first needed
+	private Predicate[] requirements = null;
+	private int rootChildren = -1;
+
+	// Every distinct permission profile, so players with the same permissions
+	// share a single profile
+	private final Map<BitSet, BitSet> profiles = new HashMap<>();
+	private final Map<UUID, SentPacket> sentPackets = new HashMap<>();
+
+	CommandPacketProfiles(Supplier<CommandNode> root) {
+		this.root = root;
+	}
+
+	/**
+	 * Marks the command tree as changed, so every player is sent the commands
+	 * packet again on their next check
+	 */
+	void invalidate() {
+		treeVersion++;
+		requirements = null;
+		profiles.clear();
+	}
+
+	/**
+	 * Records that the commands packet has been sent to a player
+	 *
+	 * @param uuid   the UUID of the player
+	 * @param source the player's NMS command source
+	 */
+	void sent(UUID uuid, Object source) {
+		// Building the profile may notice changes to the tree, so it comes first
+		BitSet profile = getProfile(source);
+		sentPackets.put(uuid, new SentPacket(treeVersion, profile));
+	}
+
+	/**
+	 * Checks whether the commands packet for a player would differ from the one
+	 * which was last sent to them
+	 *
+	 * @param uuid   the UUID of the player
+	 * @param source the player's NMS command source
+	 * @return true if the commands packet has to be sent to the player again
+	 */
+	boolean hasChanged(UUID uuid, Object source) {
+		SentPacket sentPacket = sentPackets.get(uuid);
+		if (sentPacket == null) {
+			return true;
+		}
+		BitSet profile = getProfile(source);
+		return sentPacket.treeVersion != treeVersion || sentPacket.profile != profile;
+	}
+
+	/**
+	 * Forgets the commands packet which was sent to a player
+	 *
+	 * @param uuid the UUID of the player
+	 */
+	void remove(UUID uuid) {
+		sentPackets.remove(uuid);
+	}
+
+	// Profiles are interned, so they can be compared by identity
+	private BitSet getProfile(Object source) {
+		Predicate[] requirements = getRequirements();
+		BitSet profile = new BitSet(requirements.length);
+		for (int i = 0; i < requirements.length; i++) {
+			if (requirements[i].test(source)) {
+				profile.set(i);
+			}
+		}
+		return profiles.computeIfAbsent(profile, p -> p);
+	}
+
+	private Predicate[] getRequirements() {
+		// Bukkit replaces the tree when the server loads and adds its own commands
+		// to it without going through the CommandAPI, which always adds a top
+		// level node
+		CommandNode root = this.root.get();
+		if (requirements == null || currentRoot != root || rootChildren != root.getChildren().size()) {
+			currentRoot = root;
+			rootChildren = root.getChildren().size();
+			requirements = collectRequirements(root);
+			profiles.clear();
+			treeVersion++;
+		}
+		return requirements;
+	}
+
+	private static Predicate[] collectRequirements(CommandNode root) {
+		Set<Predicate> found = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<CommandNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<CommandNode> queue = new ArrayDeque<>();
+		queue.add(root);
+		visited.add(root);
+		while (!queue.isEmpty()) {
+			CommandNode node = queue.poll();
+			if (node.getRequirement() != null) {
+				found.add(node.getRequirement());
+			}
+			for (Object child : node.getChildren()) {
+				if (visited.add((CommandNode) child)) {
+					queue.add((CommandNode) child);
+				}
+			}
+		}
+		return found.toArray(new Predicate[0]);
+	}
+
+	private static class SentPacket {
+		private final int treeVersion;
+		private final BitSet profile;
+
+		SentPacket(int treeVersion, BitSet profile) {
+			this.treeVersion = treeVersion;
+			this.profile = profile;
+		}
+	}
+
+}
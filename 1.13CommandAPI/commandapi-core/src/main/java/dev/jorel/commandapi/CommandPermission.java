@@ -29,6 +29,19 @@ public class CommandPermission {
 		return true;
 	}
 
+	/**
+	 * Returns a hash code for this CommandPermission, consistent with equals
+	 * @return a hash code for this CommandPermission
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((permission == null) ? 0 : permission.hashCode());
+		result = prime * result + ((permissionNode == null) ? 0 : permissionNode.hashCode());
+		return result;
+	}
+
 	/**
 	 * A player that has to be an operator to run a command
 	 */
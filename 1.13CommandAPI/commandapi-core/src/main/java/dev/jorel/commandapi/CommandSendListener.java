@@ -0,0 +1,20 @@
+package dev.jorel.commandapi;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+
+/**
+ * Listens for the commands packet being sent to players. This is kept apart
+ * from CommandAPIMain because PlayerCommandSendEvent doesn't exist on older
+ * 1.13 servers, and registering a listener with a missing event class fails.
+ */
+class CommandSendListener implements Listener {
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onCommandSend(PlayerCommandSendEvent e) {
+		CommandAPI.commandsSent(e.getPlayer());
+	}
+
+}
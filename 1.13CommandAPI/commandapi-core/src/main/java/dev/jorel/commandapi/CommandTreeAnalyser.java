@@ -0,0 +1,189 @@
+package dev.jorel.commandapi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+
+/**
+ * Walks a brigadier command tree to measure it. The size of the commands
+ * packet is estimated in the same way that Minecraft builds and writes it: the
+ * nodes which the command source can use are copied into a new tree, where a
+ * node with several parents (such as the children which Bukkit's namespaced
+ * copies of commands share with the original commands) is copied once per
+ * parent. Every copy is then written with its flags, the indices of its
+ * children and redirect, its name and (for arguments) its argument type and
+ * suggestion provider. Spigot's <code>send-namespaced</code> setting is
+ * honoured.
+ * <p>
+ * Commands which plugins remove in a PlayerCommandSendEvent are still counted,
+ * so the estimate is too large for players on servers with such plugins.
+ * Argument types are approximated, so the estimate can be a little too large or
+ * too small for trees with many arguments.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+final class CommandTreeAnalyser {
+
+	// Argument type serializers are version specific, so an argument type is
+	// estimated as an identifier (such as brigadier:integer) and a few properties
+	private static final int ARGUMENT_TYPE_SIZE = 20;
+
+	// minecraft:ask_server
+	private static final int SUGGESTION_PROVIDER_SIZE = 21;
+
+	private CommandTreeAnalyser() {
+	}
+
+	/**
+	 * Analyses a command tree
+	 * 
+	 * @param root           the root node of the command tree
+	 * @param source         the NMS command source to estimate the commands
+	 *                       packet for
+	 * @param sendNamespaced whether namespaced commands (such as
+	 *                       <code>minecraft:tp</code>) are sent to players
+	 * @param ownerOf        a function which returns the name of the plugin
+	 *                       which registered a top level command
+	 * @return a report on the size of the command tree
+	 */
+	static CommandTreeReport analyse(CommandNode root, Object source, boolean sendNamespaced,
+			Function<String, String> ownerOf) {
+		Map<String, Integer> nodesPerCommand = new HashMap<>();
+		Map<String, Integer> nodesPerPlugin = new HashMap<>();
+		for (Object child : root.getChildren()) {
+			CommandNode command = (CommandNode) child;
+			int nodes = countNodes(command).size();
+			nodesPerCommand.put(command.getName(), nodes);
+			nodesPerPlugin.merge(ownerOf.apply(command.getName()), nodes, Integer::sum);
+		}
+
+		List<PacketNode> packetNodes = copyVisibleNodes(root, source, sendNamespaced);
+		Map<CommandNode, Integer> firstCopies = new IdentityHashMap<>();
+		for (int i = 0; i < packetNodes.size(); i++) {
+			packetNodes.get(i).index = i;
+			firstCopies.putIfAbsent(packetNodes.get(i).node, i);
+		}
+
+		// The packet starts with the number of nodes and ends with the root index
+		int packetSize = varIntSize(packetNodes.size()) + varIntSize(0);
+		for (PacketNode packetNode : packetNodes) {
+			packetSize += nodeSize(packetNode, firstCopies);
+		}
+
+		return new CommandTreeReport(countNodes(root).size(), packetNodes.size(), packetSize,
+				sortDescending(nodesPerCommand), sortDescending(nodesPerPlugin));
+	}
+
+	// Finds every distinct node below a node. Redirects aren't followed, because
+	// their targets are already part of the tree (such as the command an alias
+	// redirects to)
+	private static Set<CommandNode> countNodes(CommandNode start) {
+		Set<CommandNode> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<CommandNode> queue = new ArrayDeque<>();
+		queue.add(start);
+		nodes.add(start);
+		while (!queue.isEmpty()) {
+			CommandNode node = queue.poll();
+			for (Object child : node.getChildren()) {
+				if (nodes.add((CommandNode) child)) {
+					queue.add((CommandNode) child);
+				}
+			}
+		}
+		return nodes;
+	}
+
+	// Copies the nodes which a command source can use, once per parent, in the
+	// same way as Minecraft builds the tree it sends
+	private static List<PacketNode> copyVisibleNodes(CommandNode root, Object source, boolean sendNamespaced) {
+		List<PacketNode> nodes = new ArrayList<>();
+		Deque<PacketNode> queue = new ArrayDeque<>();
+		PacketNode rootCopy = new PacketNode(root);
+		nodes.add(rootCopy);
+		queue.add(rootCopy);
+		while (!queue.isEmpty()) {
+			PacketNode parent = queue.poll();
+			for (Object child : parent.node.getChildren()) {
+				CommandNode childNode = (CommandNode) child;
+				if (childNode.canUse(source) && (sendNamespaced || !childNode.getName().contains(":"))) {
+					PacketNode copy = new PacketNode(childNode);
+					parent.children.add(copy);
+					nodes.add(copy);
+					queue.add(copy);
+				}
+			}
+		}
+		return nodes;
+	}
+
+	private static int nodeSize(PacketNode packetNode, Map<CommandNode, Integer> firstCopies) {
+		CommandNode node = packetNode.node;
+
+		// Flags
+		int size = 1;
+
+		size += varIntSize(packetNode.children.size());
+		for (PacketNode child : packetNode.children) {
+			size += varIntSize(child.index);
+		}
+
+		if (node.getRedirect() != null) {
+			size += varIntSize(firstCopies.getOrDefault(node.getRedirect(), 0));
+		}
+
+		if (node instanceof LiteralCommandNode) {
+			size += stringSize(((LiteralCommandNode) node).getLiteral());
+		} else if (node instanceof ArgumentCommandNode) {
+			size += stringSize(node.getName()) + ARGUMENT_TYPE_SIZE;
+			if (((ArgumentCommandNode) node).getCustomSuggestions() != null) {
+				size += SUGGESTION_PROVIDER_SIZE;
+			}
+		}
+		return size;
+	}
+
+	private static int stringSize(String str) {
+		int length = str.getBytes(StandardCharsets.UTF_8).length;
+		return varIntSize(length) + length;
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private static class PacketNode {
+		private final CommandNode node;
+		private final List<PacketNode> children = new ArrayList<>();
+		private int index;
+
+		PacketNode(CommandNode node) {
+			this.node = node;
+		}
+	}
+
+	private static Map<String, Integer> sortDescending(Map<String, Integer> map) {
+		Map<String, Integer> result = new LinkedHashMap<>();
+		map.entrySet().stream().sorted(Entry.<String, Integer>comparingByValue().reversed())
+				.forEachOrdered(entry -> result.put(entry.getKey(), entry.getValue()));
+		return result;
+	}
+
+}
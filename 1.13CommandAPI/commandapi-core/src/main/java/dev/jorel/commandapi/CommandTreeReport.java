@@ -0,0 +1,76 @@
+package dev.jorel.commandapi;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A summary of the size of the server's command tree, and of the commands
+ * packet which is sent to a specific command sender.
+ */
+public class CommandTreeReport {
+
+	private final int totalNodes;
+	private final int visibleNodes;
+	private final int estimatedPacketSize;
+	private final Map<String, Integer> nodesPerCommand;
+	private final Map<String, Integer> nodesPerPlugin;
+
+	CommandTreeReport(int totalNodes, int visibleNodes, int estimatedPacketSize, Map<String, Integer> nodesPerCommand,
+			Map<String, Integer> nodesPerPlugin) {
+		this.totalNodes = totalNodes;
+		this.visibleNodes = visibleNodes;
+		this.estimatedPacketSize = estimatedPacketSize;
+		this.nodesPerCommand = Collections.unmodifiableMap(nodesPerCommand);
+		this.nodesPerPlugin = Collections.unmodifiableMap(nodesPerPlugin);
+	}
+
+	/**
+	 * Returns the number of nodes in the command tree, including the root node
+	 * @return the number of nodes in the command tree
+	 */
+	public int getTotalNodes() {
+		return totalNodes;
+	}
+
+	/**
+	 * Returns the number of nodes that are sent to the command sender in the
+	 * commands packet. This only includes nodes that the command sender can use,
+	 * but a node with several parents is sent once for each of them
+	 * @return the number of nodes visible to the command sender
+	 */
+	public int getVisibleNodes() {
+		return visibleNodes;
+	}
+
+	/**
+	 * Returns an estimate of the size of the commands packet sent to the command
+	 * sender, in bytes. Spigot's <code>send-namespaced</code> setting is taken
+	 * into account, but commands which plugins remove in a PlayerCommandSendEvent
+	 * are not, so the estimate is an upper bound on servers with such plugins.
+	 * Argument types are serialized differently by each version of Minecraft, so
+	 * their size is approximated
+	 * @return the estimated size of the commands packet, in bytes
+	 */
+	public int getEstimatedPacketSize() {
+		return estimatedPacketSize;
+	}
+
+	/**
+	 * Returns the number of nodes of each top level command (including the
+	 * command's own node), ordered from largest to smallest
+	 * @return a map of command names to their number of nodes
+	 */
+	public Map<String, Integer> getNodesPerCommand() {
+		return nodesPerCommand;
+	}
+
+	/**
+	 * Returns the number of nodes registered by each plugin, ordered from largest
+	 * to smallest. Vanilla commands are counted under <code>minecraft</code>
+	 * @return a map of plugin names to their number of nodes
+	 */
+	public Map<String, Integer> getNodesPerPlugin() {
+		return nodesPerPlugin;
+	}
+
+}
@@ -1,7 +1,6 @@
 package dev.jorel.commandapi;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.EnumMap;
 
 import org.bukkit.command.BlockCommandSender;
 import org.bukkit.command.CommandSender;
@@ -18,96 +17,142 @@ import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
 import dev.jorel.commandapi.executors.ExecutorType;
 import dev.jorel.commandapi.executors.IExecutorNormal;
 import dev.jorel.commandapi.executors.IExecutorResulting;
+import dev.jorel.commandapi.executors.LazyCommandExecutor;
+import dev.jorel.commandapi.executors.LazyResultingCommandExecutor;
 
 class CustomCommandExecutor {
+
+	//The first executor of each type, with their sender types already resolved
+	private EnumMap<ExecutorType, ExecutorTarget> ex;
+	private EnumMap<ExecutorType, ExecutorTarget> rEx;
+
+	//Maps the class of a command sender to the executor which runs for it
+	private ClassValue<ExecutorTarget> dispatchTable;
 	
-	private List<IExecutorNormal<? extends CommandSender>> ex;
-	private List<IExecutorResulting<? extends CommandSender>> rEx;
-	
+	//The class of the first executor, used to find the plugin which declared it
+	private Class<?> ownerClass;
+
 	public CustomCommandExecutor() {
-		ex = new ArrayList<>();
-		rEx = new ArrayList<>();
+		ex = new EnumMap<>(ExecutorType.class);
+		rEx = new EnumMap<>(ExecutorType.class);
 	}
-	
+
 	public void addNormalExecutor(IExecutorNormal<? extends CommandSender> ex) {
-		this.ex.add(ex);
+		setOwner(ex);
+		//Resolve the sender type once, instead of every time the command is run
+		Class<?> senderType = ex.getSenderType();
+		this.ex.putIfAbsent(ex.getType(), (sender, ctx, resolvers) -> ex.executeWith(senderType, sender, ctx.resolveArguments(resolvers, false)));
 	}
-	
+
 	public void addResultingExecutor(IExecutorResulting<? extends CommandSender> rEx) {
-		this.rEx.add(rEx);
+		setOwner(rEx);
+		Class<?> senderType = rEx.getSenderType();
+		this.rEx.putIfAbsent(rEx.getType(), (sender, ctx, resolvers) -> rEx.executeWith(senderType, sender, ctx.resolveArguments(resolvers, false)));
+	}
+
+	public void addLazyExecutor(LazyCommandExecutor ex) {
+		setOwner(ex);
+		//Arguments are only converted when the executor accesses them
+		addLazyTarget(this.ex, (sender, ctx, resolvers) -> {
+			ex.run(sender, new LazyArgumentArray(ctx, resolvers));
+			return 1;
+		});
+	}
+
+	public void addLazyResultingExecutor(LazyResultingCommandExecutor rEx) {
+		setOwner(rEx);
+		addLazyTarget(this.rEx, (sender, ctx, resolvers) -> rEx.run(sender, new LazyArgumentArray(ctx, resolvers)));
+	}
+
+	//Lazy executors run for every command sender, so they share a slot with executors for all senders
+	private static void addLazyTarget(EnumMap<ExecutorType, ExecutorTarget> targets, ExecutorTarget target) {
+		if(targets.putIfAbsent(ExecutorType.ALL, target) != null) {
+			CommandAPIMain.getLog().warning("Ignoring a lazy executor, because the command already has an executor for all command senders");
+		}
+	}
+
+	private void setOwner(Object executor) {
+		if(ownerClass == null) {
+			ownerClass = executor.getClass();
+		}
 	}
 	
+	/**
+	 * Returns the class of the first executor which was added, which belongs to
+	 * the plugin that declared this command
+	 * @return the class of the first executor, or null if there are no executors
+	 */
+	Class<?> getOwnerClass() {
+		return ownerClass;
+	}
+
 	public boolean isEmpty() {
 		return ex.isEmpty() && rEx.isEmpty();
 	}
-	
-	public int execute(CommandSender sender, Object[] arguments) throws CommandSyntaxException {
-		
-		//Parse executor type
-        if (!rEx.isEmpty()) {
-            //Run resulting executor
-            try {
-                return executeResultingExecutor(sender, arguments);
-            } catch (WrapperCommandSyntaxException e) {
-                throw e.getException();
-            } catch (Exception e) {
-                e.printStackTrace(System.out);
-                return 0;
-            }
-        } else {
-            //Run normal executor
-            try {
-                return executeNormalExecutor(sender, arguments);
-            } catch (WrapperCommandSyntaxException e) {
-                throw e.getException();
-            } catch (Exception e) {
-                e.printStackTrace(System.out);
-                return 0;
-            }
-        }
+
+	/**
+	 * Freezes the current executors into a dispatch table, so choosing the
+	 * executor for a command sender is a single lookup per sender class. This is
+	 * called when the command is registered
+	 */
+	void freeze() {
+		//Resulting executors take priority over normal executors
+		EnumMap<ExecutorType, ExecutorTarget> targets = new EnumMap<>(rEx.isEmpty() ? ex : rEx);
+
+		this.dispatchTable = new ClassValue<ExecutorTarget>() {
+			@Override
+			protected ExecutorTarget computeValue(Class<?> type) {
+				return findTarget(targets, type);
+			}
+		};
 	}
-	
-	private int executeNormalExecutor(CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
-		if(sender instanceof Player && ex.stream().anyMatch(o -> o.getType() == ExecutorType.PLAYER)) {
-			return ex.stream().filter(o -> o.getType() == ExecutorType.PLAYER).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof Entity && ex.stream().anyMatch(o -> o.getType() == ExecutorType.ENTITY)) {
-			return ex.stream().filter(o -> o.getType() == ExecutorType.ENTITY).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof ConsoleCommandSender && ex.stream().anyMatch(o -> o.getType() == ExecutorType.CONSOLE)) {
-			return ex.stream().filter(o -> o.getType() == ExecutorType.CONSOLE).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof BlockCommandSender && ex.stream().anyMatch(o -> o.getType() == ExecutorType.BLOCK)) {
-			return ex.stream().filter(o -> o.getType() == ExecutorType.BLOCK).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof ProxiedCommandSender && ex.stream().anyMatch(o -> o.getType() == ExecutorType.PROXY)) {
-			return ex.stream().filter(o -> o.getType() == ExecutorType.PROXY).findFirst().get().executeWith(sender, args);
-		} else if(ex.stream().anyMatch(o -> o.getType() == ExecutorType.ALL)) {
-			return ex.stream().filter(o -> o.getType() == ExecutorType.ALL).findFirst().get().executeWith(sender, args);
-		} else {
-			throw new WrapperCommandSyntaxException(
-				new SimpleCommandExceptionType(
-					new LiteralMessage("This command has no implementations for " + sender.getClass().getSimpleName().toLowerCase())
-				).create()
-			); 
+
+	public int execute(ExecutionContext ctx, ArgumentResolver[] resolvers) throws CommandSyntaxException {
+		CommandSender sender = ctx.getSender();
+		try {
+			return dispatchTable.get(sender.getClass()).run(sender, ctx, resolvers);
+		} catch (WrapperCommandSyntaxException e) {
+			throw e.getException();
+		} catch (CommandSyntaxException e) {
+			//Arguments which cannot be converted are reported as normal
+			throw e;
+		} catch (Exception e) {
+			e.printStackTrace(System.out);
+			return 0;
 		}
 	}
-	
-	private int executeResultingExecutor(CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
-		if(sender instanceof Player && rEx.stream().anyMatch(o -> o.getType() == ExecutorType.PLAYER)) {
-			return rEx.stream().filter(o -> o.getType() == ExecutorType.PLAYER).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof Entity && rEx.stream().anyMatch(o -> o.getType() == ExecutorType.ENTITY)) {
-			return rEx.stream().filter(o -> o.getType() == ExecutorType.ENTITY).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof ConsoleCommandSender && rEx.stream().anyMatch(o -> o.getType() == ExecutorType.CONSOLE)) {
-			return rEx.stream().filter(o -> o.getType() == ExecutorType.CONSOLE).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof BlockCommandSender && rEx.stream().anyMatch(o -> o.getType() == ExecutorType.BLOCK)) {
-			return rEx.stream().filter(o -> o.getType() == ExecutorType.BLOCK).findFirst().get().executeWith(sender, args);
-		} else if(sender instanceof ProxiedCommandSender && ex.stream().anyMatch(o -> o.getType() == ExecutorType.PROXY)) {
-			return ex.stream().filter(o -> o.getType() == ExecutorType.PROXY).findFirst().get().executeWith(sender, args);
-		} else if(rEx.stream().anyMatch(o -> o.getType() == ExecutorType.ALL)) {
-			return rEx.stream().filter(o -> o.getType() == ExecutorType.ALL).findFirst().get().executeWith(sender, args);
+
+	private static ExecutorTarget findTarget(EnumMap<ExecutorType, ExecutorTarget> targets, Class<?> type) {
+		if(Player.class.isAssignableFrom(type) && targets.containsKey(ExecutorType.PLAYER)) {
+			return targets.get(ExecutorType.PLAYER);
+		} else if(Entity.class.isAssignableFrom(type) && targets.containsKey(ExecutorType.ENTITY)) {
+			return targets.get(ExecutorType.ENTITY);
+		} else if(ConsoleCommandSender.class.isAssignableFrom(type) && targets.containsKey(ExecutorType.CONSOLE)) {
+			return targets.get(ExecutorType.CONSOLE);
+		} else if(BlockCommandSender.class.isAssignableFrom(type) && targets.containsKey(ExecutorType.BLOCK)) {
+			return targets.get(ExecutorType.BLOCK);
+		} else if(ProxiedCommandSender.class.isAssignableFrom(type) && targets.containsKey(ExecutorType.PROXY)) {
+			return targets.get(ExecutorType.PROXY);
+		} else if(targets.containsKey(ExecutorType.ALL)) {
+			return targets.get(ExecutorType.ALL);
 		} else {
-			throw new WrapperCommandSyntaxException(
-				new SimpleCommandExceptionType(
-					new LiteralMessage("This command has no implementations for " + sender.getClass().getSimpleName().toLowerCase())
-				).create()
-			); 
+			String message = "This command has no implementations for " + type.getSimpleName().toLowerCase();
+			return (sender, ctx, resolvers) -> {
+				throw new WrapperCommandSyntaxException(
+					new SimpleCommandExceptionType(new LiteralMessage(message)).create()
+				);
+			};
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * An executor which has been selected for a type of command sender. Targets
+	 * receive the compiled resolvers of the command, so they can choose when to
+	 * convert its arguments
+	 */
+	@FunctionalInterface
+	private interface ExecutorTarget {
+		int run(CommandSender sender, ExecutionContext ctx, ArgumentResolver[] resolvers)
+				throws WrapperCommandSyntaxException, CommandSyntaxException;
+	}
+}
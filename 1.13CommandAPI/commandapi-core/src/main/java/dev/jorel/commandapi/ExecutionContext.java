@@ -0,0 +1,110 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import dev.jorel.commandapi.nms.NMS;
+
+/**
+ * The state of a single command invocation which is shared between every
+ * argument of that invocation. Each value is looked up from NMS the first time
+ * it is needed and reused afterwards, so a command with several
+ * sender-dependent arguments (such as locations or teams) only resolves its
+ * sender and world once.
+ */
+final class ExecutionContext {
+
+	private final NMS nms;
+	private final CommandContext<?> cmdCtx;
+
+	private CommandSender bukkitSender;
+	private CommandSender sender;
+	private World world;
+	private boolean worldResolved;
+
+	/**
+	 * Creates a new execution context for a command invocation
+	 *
+	 * @param nms    the NMS implementation to resolve values with
+	 * @param cmdCtx the command context of this invocation
+	 */
+	ExecutionContext(NMS nms, CommandContext<?> cmdCtx) {
+		this.nms = nms;
+		this.cmdCtx = cmdCtx;
+	}
+
+	/**
+	 * @return the brigadier command context of this invocation
+	 */
+	CommandContext<?> getCommandContext() {
+		return cmdCtx;
+	}
+
+	/**
+	 * @return the command source of this invocation (the NMS
+	 *         CommandListenerWrapper)
+	 */
+	Object getSource() {
+		return cmdCtx.getSource();
+	}
+
+	/**
+	 * @return the Bukkit command sender which ran this command, ignoring any
+	 *         execute as/at proxying
+	 */
+	CommandSender getBukkitSender() {
+		if (bukkitSender == null) {
+			bukkitSender = nms.getCommandSenderForCLW(cmdCtx.getSource());
+		}
+		return bukkitSender;
+	}
+
+	/**
+	 * @return the command sender of this invocation, which is a
+	 *         ProxiedCommandSender if the command was run via /execute as
+	 */
+	CommandSender getSender() {
+		if (sender == null) {
+			sender = nms.getSenderForCommand(cmdCtx);
+		}
+		return sender;
+	}
+
+	/**
+	 * @return the world which the command sender of this invocation is in
+	 */
+	World getWorld() {
+		if (!worldResolved) {
+			world = nms.getCommandSenderWorld(getSender());
+			worldResolved = true;
+		}
+		return world;
+	}
+
+	/**
+	 * Runs an array of compiled resolvers against this invocation.
+	 * 
+	 * @param resolvers    the compiled resolvers to run
+	 * @param includeNulls whether null results are kept in the resultant array.
+	 *                     If false, null results are removed
+	 * @return the resolved arguments, in the order of declaration
+	 * @throws CommandSyntaxException if an argument cannot be resolved
+	 */
+	Object[] resolveArguments(ArgumentResolver[] resolvers, boolean includeNulls) throws CommandSyntaxException {
+		Object[] result = new Object[resolvers.length];
+		int count = 0;
+		for (ArgumentResolver resolver : resolvers) {
+			Object value = resolver.resolve(cmdCtx, this);
+			if (value != null || includeNulls) {
+				result[count++] = value;
+			}
+		}
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+
+}
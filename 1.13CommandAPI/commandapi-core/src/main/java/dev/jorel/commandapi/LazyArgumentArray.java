@@ -0,0 +1,60 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+import dev.jorel.commandapi.executors.LazyArguments;
+
+/**
+ * The implementation of LazyArguments, which runs each compiled resolver at
+ * most once per command invocation
+ */
+final class LazyArgumentArray implements LazyArguments {
+
+	private final ExecutionContext ctx;
+	private final ArgumentResolver[] resolvers;
+	private final Object[] values;
+	private final boolean[] resolved;
+
+	LazyArgumentArray(ExecutionContext ctx, ArgumentResolver[] resolvers) {
+		this.ctx = ctx;
+		this.resolvers = resolvers;
+		this.values = new Object[resolvers.length];
+		this.resolved = new boolean[resolvers.length];
+	}
+
+	@Override
+	public int size() {
+		return resolvers.length;
+	}
+
+	@Override
+	public Object get(int index) throws WrapperCommandSyntaxException {
+		if (!resolved[index]) {
+			try {
+				values[index] = resolvers[index].resolve(ctx.getCommandContext(), ctx);
+			} catch (CommandSyntaxException e) {
+				throw new WrapperCommandSyntaxException(e);
+			}
+			resolved[index] = true;
+		}
+		return values[index];
+	}
+
+	@Override
+	public Object[] toArray() throws WrapperCommandSyntaxException {
+		// Normal executors are given their arguments without nulls
+		Object[] result = new Object[resolvers.length];
+		int count = 0;
+		for (int i = 0; i < resolvers.length; i++) {
+			Object value = get(i);
+			if (value != null) {
+				result[count++] = value;
+			}
+		}
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+
+}
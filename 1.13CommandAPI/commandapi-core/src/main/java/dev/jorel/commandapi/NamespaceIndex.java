@@ -0,0 +1,78 @@
+package dev.jorel.commandapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An index from the name of a command to the names of its namespaced versions
+ * (such as <code>minecraft:gamemode</code> or <code>bukkit:version</code>) in
+ * the root of the command tree, so forcibly unregistering a command doesn't
+ * have to check every top level command.
+ * <p>
+ * Bukkit and Minecraft add top level commands without going through the
+ * CommandAPI, so the index is rebuilt whenever the number of top level
+ * commands has changed since it was last built or updated, and whenever the
+ * CommandAPI has added commands itself. A command which is added without going
+ * through the CommandAPI while another is removed leaves the number of
+ * commands unchanged, so the index goes stale: a namespaced version of the new
+ * command isn't found (and isn't forcibly unregistered) until the index is
+ * next rebuilt.
+ */
+final class NamespaceIndex {
+
+	private Map<String, List<String>> namespacedNames = null;
+	private Map<String, ?> indexedChildren = null;
+	private int indexedSize = -1;
+
+	/**
+	 * Removes a command from the index, returning its namespaced versions
+	 *
+	 * @param children    the top level commands of the command tree
+	 * @param commandName the name of the command, without a namespace
+	 * @return the names of the namespaced versions of the command
+	 */
+	List<String> takeNamespacedNames(Map<String, ?> children, String commandName) {
+		if (namespacedNames == null || indexedChildren != children || indexedSize != children.size()) {
+			build(children);
+		}
+		List<String> names = namespacedNames.remove(commandName.toLowerCase(Locale.ROOT));
+		return names == null ? Collections.emptyList() : names;
+	}
+
+	/**
+	 * Rebuilds the index the next time it is used, after commands have been
+	 * added to the command tree
+	 */
+	void invalidate() {
+		namespacedNames = null;
+	}
+
+	/**
+	 * Marks the index as up to date after the commands taken from it have been
+	 * removed from the command tree
+	 *
+	 * @param children the top level commands of the command tree
+	 */
+	void update(Map<String, ?> children) {
+		if (indexedChildren == children) {
+			indexedSize = children.size();
+		}
+	}
+
+	private void build(Map<String, ?> children) {
+		namespacedNames = new HashMap<>();
+		for (String name : children.keySet()) {
+			String[] parts = name.split(":");
+			if (parts.length > 1) {
+				namespacedNames.computeIfAbsent(parts[1].toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(name);
+			}
+		}
+		indexedChildren = children;
+		indexedSize = children.size();
+	}
+
+}
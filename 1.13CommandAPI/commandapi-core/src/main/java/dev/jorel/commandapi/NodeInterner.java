@@ -0,0 +1,143 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.LiteralArgument;
+
+/**
+ * Shares the parts of command nodes which are structurally identical between
+ * commands. Every command with the same permission gets the same requirement
+ * predicate, equal argument types are only kept once and arguments with the
+ * same fixed suggestions share one suggestion index. This also counts how many
+ * of these objects were reused instead of being kept once per node.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+final class NodeInterner {
+
+	// Whether an argument type class compares by value, rather than by identity
+	private static final ClassValue<Boolean> HAS_EQUALS = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+	};
+
+	private final Function<CommandPermission, Predicate> requirementFactory;
+	private final Map<CommandPermission, Predicate> requirements = new HashMap<>();
+	private final Map<ArgumentType<?>, ArgumentType<?>> argumentTypes = new HashMap<>();
+	private final Map<List<String>, SuggestionIndex> suggestionIndexes = new HashMap<>();
+	private int reused = 0;
+
+	/**
+	 * @param requirementFactory a function which creates the requirement
+	 *                           predicate for a permission
+	 */
+	NodeInterner(Function<CommandPermission, Predicate> requirementFactory) {
+		this.requirementFactory = requirementFactory;
+	}
+
+	/**
+	 * @param permission the permission required to use a node
+	 * @return the requirement predicate shared by every node with that permission
+	 */
+	Predicate getRequirement(CommandPermission permission) {
+		Predicate requirement = requirements.get(permission);
+		if (requirement != null) {
+			reused++;
+			return requirement;
+		}
+		requirement = requirementFactory.apply(permission);
+		requirements.put(permission, requirement);
+		return requirement;
+	}
+
+	/**
+	 * @param type an argument type
+	 * @return an equal argument type which is already in use, or the given
+	 *         argument type if there isn't one
+	 */
+	<T> ArgumentType<T> getArgumentType(ArgumentType<T> type) {
+		if (!HAS_EQUALS.get(type.getClass())) {
+			return type;
+		}
+		ArgumentType<?> existing = argumentTypes.putIfAbsent(type, type);
+		if (existing == null || existing == type) {
+			return type;
+		}
+		reused++;
+		return (ArgumentType<T>) existing;
+	}
+
+	/**
+	 * @param suggestions an array of fixed suggestions
+	 * @return the suggestion index for an array with the same contents
+	 */
+	SuggestionIndex getSuggestionIndex(String[] suggestions) {
+		// The array is copied, so changing it afterwards doesn't change the key
+		List<String> key = Arrays.asList(suggestions.clone());
+		SuggestionIndex index = suggestionIndexes.get(key);
+		if (index != null) {
+			reused++;
+			return index;
+		}
+		index = new SuggestionIndex(suggestions);
+		suggestionIndexes.put(key, index);
+		return index;
+	}
+
+	/**
+	 * Warns about arguments of a command which brigadier will merge into an
+	 * existing argument of a different type.
+	 * 
+	 * @param root        the root node of the dispatcher
+	 * @param commandName the name of the command that is about to be registered
+	 * @param args        the arguments of the command
+	 */
+	void checkMergedArguments(CommandNode<?> root, String commandName, Map<String, Argument> args) {
+		CommandNode<?> node = root.getChild(commandName);
+		if (node == null) {
+			return;
+		}
+
+		for (Entry<String, Argument> entry : args.entrySet()) {
+			Argument argument = entry.getValue();
+			String name = argument instanceof LiteralArgument ? ((LiteralArgument) argument).getLiteral()
+					: entry.getKey();
+			CommandNode<?> child = node.getChild(name);
+			if (child == null) {
+				return;
+			}
+			if (child instanceof ArgumentCommandNode && !((ArgumentCommandNode<?, ?>) child).getType().getClass()
+					.equals(argument.getRawType().getClass())) {
+				CommandAPIMain.getLog().warning("Argument <" + name + "> of /" + commandName
+						+ " has a different type to an argument with the same name which is already registered."
+						+ " Brigadier will use the argument which was registered first!");
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * @return the number of requirements, argument types and suggestion indexes
+	 *         which were reused by another node instead of being created again
+	 */
+	int getReusedCount() {
+		return reused;
+	}
+
+}
@@ -0,0 +1,227 @@
+package dev.jorel.commandapi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import com.mojang.brigadier.LiteralMessage;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+import dev.jorel.commandapi.executors.LazyArguments;
+
+/**
+ * Memoises the previously declared arguments of a suggestion request for each
+ * command sender. While a player types an argument, the input before that
+ * argument doesn't change, so each previous argument (such as an entity
+ * selector or a location) is only resolved the first time a suggestion
+ * provider asks for it, and reused for the rest of the keystrokes. Memoised
+ * arguments are discarded once the input before the argument changes, after a
+ * short time so that they don't go stale if a player stops typing, or when the
+ * player leaves the server.
+ * <p>
+ * Only the resolved values are memoised. The context of the request which
+ * resolves them (and with it the sender's NMS handle) is only held on to for
+ * the duration of that request.
+ */
+final class PreviousArgumentCache {
+
+	private static final long LIFETIME_NANOS = 5000L * 1000000L;
+	private static final int MAX_SENDERS = 1024;
+
+	// How long a suggestion thread waits for the server thread to resolve an
+	// argument, if its suggestions are allowed to take forever
+	private static final long MAX_SERVER_THREAD_WAIT_MILLIS = 5000L;
+
+	// Every cache, so that a sender's arguments can be discarded from all of them
+	private static final Set<PreviousArgumentCache> caches = Collections.newSetFromMap(new WeakHashMap<>());
+
+	private final ArgumentResolver[] resolvers;
+	private final long serverThreadWaitMillis;
+	private final Map<Object, PreviousArguments> entries;
+
+	/**
+	 * Creates a cache for the previously declared arguments of an argument whose
+	 * suggestions are computed on the server thread
+	 *
+	 * @param resolvers the compiled resolvers of the previously declared
+	 *                  arguments
+	 */
+	PreviousArgumentCache(ArgumentResolver[] resolvers) {
+		this(resolvers, 0);
+	}
+
+	/**
+	 * Creates a cache for the previously declared arguments of an argument
+	 *
+	 * @param resolvers     the compiled resolvers of the previously declared
+	 *                      arguments
+	 * @param timeoutMillis how long the argument's suggestions may take, or 0 if
+	 *                      there is no limit. Arguments which are resolved off
+	 *                      the server thread fail if the server thread doesn't
+	 *                      resolve them within this time
+	 */
+	PreviousArgumentCache(ArgumentResolver[] resolvers, long timeoutMillis) {
+		this.resolvers = resolvers;
+		this.serverThreadWaitMillis = timeoutMillis > 0 ? timeoutMillis : MAX_SERVER_THREAD_WAIT_MILLIS;
+		this.entries = new LinkedHashMap<Object, PreviousArguments>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, PreviousArguments> eldest) {
+				return size() > MAX_SENDERS;
+			}
+		};
+		synchronized (caches) {
+			caches.add(this);
+		}
+	}
+
+	/**
+	 * Returns a lazy view of the previously declared arguments of a suggestion
+	 * request, which reuses the arguments resolved for the sender's previous
+	 * requests if the input before the current argument hasn't changed
+	 *
+	 * @param ctx     the execution context of the suggestion request
+	 * @param builder the SuggestionsBuilder of the suggestion request
+	 * @return the previously declared arguments
+	 */
+	LazyArguments resolve(ExecutionContext ctx, SuggestionsBuilder builder) {
+		String prefix = builder.getInput().substring(0, builder.getStart());
+		Object key = SuggestionCache.getSenderKey(ctx.getBukkitSender());
+		PreviousArguments previous;
+		synchronized (this) {
+			previous = entries.get(key);
+			if (previous == null || !previous.prefix.equals(prefix)
+					|| System.nanoTime() - previous.created > LIFETIME_NANOS) {
+				previous = new PreviousArguments(prefix, resolvers.length);
+				entries.put(key, previous);
+			}
+		}
+		return new View(ctx, previous);
+	}
+
+	/**
+	 * Discards the memoised arguments of a command sender from every cache
+	 *
+	 * @param senderKey the key of the sender, as returned by
+	 *                  {@link SuggestionCache#getSenderKey}
+	 */
+	static void remove(Object senderKey) {
+		synchronized (caches) {
+			for (PreviousArgumentCache cache : caches) {
+				synchronized (cache) {
+					cache.entries.remove(senderKey);
+				}
+			}
+		}
+	}
+
+	private static class PreviousArguments {
+		private final String prefix;
+		private final long created;
+		private final Object[] values;
+		private final boolean[] resolved;
+
+		PreviousArguments(String prefix, int size) {
+			this.prefix = prefix;
+			this.created = System.nanoTime();
+			this.values = new Object[size];
+			this.resolved = new boolean[size];
+		}
+	}
+
+	// The memoised arguments, as seen by a single request
+	private final class View implements LazyArguments {
+		private final ExecutionContext ctx;
+		private final PreviousArguments arguments;
+
+		View(ExecutionContext ctx, PreviousArguments arguments) {
+			this.ctx = ctx;
+			this.arguments = arguments;
+		}
+
+		@Override
+		public int size() {
+			return resolvers.length;
+		}
+
+		@Override
+		public Object get(int index) throws WrapperCommandSyntaxException {
+			synchronized (arguments) {
+				if (arguments.resolved[index]) {
+					return arguments.values[index];
+				}
+			}
+
+			// Arguments read the world, so asynchronous suggestion providers resolve
+			// them on the server thread
+			if (!Bukkit.isPrimaryThread()) {
+				return getOnServerThread(index);
+			}
+
+			Object value;
+			try {
+				value = resolvers[index].resolve(ctx.getCommandContext(), ctx);
+			} catch (CommandSyntaxException e) {
+				throw new WrapperCommandSyntaxException(e);
+			}
+			synchronized (arguments) {
+				arguments.values[index] = value;
+				arguments.resolved[index] = true;
+			}
+			return value;
+		}
+
+		@Override
+		public Object[] toArray() throws WrapperCommandSyntaxException {
+			Object[] result = new Object[resolvers.length];
+			for (int i = 0; i < resolvers.length; i++) {
+				result[i] = get(i);
+			}
+			return result;
+		}
+
+		// Waits for at most the suggestion timeout, because the server thread only
+		// runs the task on its next tick, and never runs it once the server stops
+		private Object getOnServerThread(int index) throws WrapperCommandSyntaxException {
+			Future<Object> result;
+			try {
+				result = Bukkit.getScheduler().callSyncMethod(JavaPlugin.getPlugin(CommandAPIMain.class), () -> get(index));
+			} catch (RuntimeException e) {
+				// The CommandAPI has been disabled
+				throw failure("Failed to resolve argument " + index + ": " + e);
+			}
+			try {
+				return result.get(serverThreadWaitMillis, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				result.cancel(false);
+				throw failure("Timed out resolving argument " + index);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof WrapperCommandSyntaxException) {
+					throw (WrapperCommandSyntaxException) e.getCause();
+				}
+				throw failure("Failed to resolve argument " + index + ": " + e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw failure("Interrupted while resolving argument " + index);
+			}
+		}
+	}
+
+	private static WrapperCommandSyntaxException failure(String message) {
+		return new WrapperCommandSyntaxException(new SimpleCommandExceptionType(new LiteralMessage(message)).create());
+	}
+
+}
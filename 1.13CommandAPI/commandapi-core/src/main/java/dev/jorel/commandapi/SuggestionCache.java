@@ -0,0 +1,128 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.SuggestionCacheKey;
+
+/**
+ * A cache of the suggestions provided by an argument's suggestion function.
+ * Entries expire after a fixed time, and the least recently used entry is
+ * evicted when the cache is full.
+ */
+final class SuggestionCache {
+
+	private static final Object GLOBAL_KEY = new Object();
+
+	private final SuggestionCacheKey keyType;
+	private final long ttlNanos;
+	private final Map<Object, CachedSuggestions> entries;
+
+	private SuggestionCache(SuggestionCacheKey keyType, long ttlMillis, int maxSize) {
+		this.keyType = keyType;
+		this.ttlNanos = ttlMillis * 1000000L;
+		this.entries = new LinkedHashMap<Object, CachedSuggestions>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, CachedSuggestions> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Creates a suggestion cache for an argument
+	 * 
+	 * @param argument the argument whose suggestions are to be cached
+	 * @return a new suggestion cache, or null if the argument's suggestions
+	 *         aren't cached
+	 */
+	static SuggestionCache of(Argument argument) {
+		if (argument.getSuggestionCacheKey() == null) {
+			return null;
+		}
+		return new SuggestionCache(argument.getSuggestionCacheKey(), argument.getSuggestionCacheTTL(),
+				argument.getSuggestionCacheSize());
+	}
+
+	/**
+	 * Returns the key that suggestions are cached under for a suggestion request
+	 * 
+	 * @param sender  the command sender that is requesting suggestions
+	 * @param builder the SuggestionsBuilder of the suggestion request
+	 * @return the key to look up cached suggestions with
+	 */
+	Object getKey(CommandSender sender, SuggestionsBuilder builder) {
+		switch (keyType) {
+		case SENDER:
+			return getSenderKey(sender);
+		case PREVIOUS_ARGUMENTS: {
+			String prefix = builder.getInput().substring(0, builder.getStart());
+			// Selectors and relative coordinates (such as @s or ~ ~ ~) mean
+			// something different to every sender
+			if (prefix.indexOf('@') != -1 || prefix.indexOf('~') != -1 || prefix.indexOf('^') != -1) {
+				return Arrays.asList(getSenderKey(sender), prefix);
+			}
+			return prefix;
+		}
+		case GLOBAL:
+		default:
+			return GLOBAL_KEY;
+		}
+	}
+
+	/**
+	 * Returns a key which identifies a command sender. Entities (including
+	 * players) are identified by their UUID and other senders by their name
+	 * 
+	 * @param sender the command sender to identify
+	 * @return the key of the command sender
+	 */
+	static Object getSenderKey(CommandSender sender) {
+		return sender instanceof Entity ? ((Entity) sender).getUniqueId() : sender.getName();
+	}
+
+	/**
+	 * @param key the key to look up
+	 * @return the cached suggestions for the key, or null if there are none or
+	 *         they have expired
+	 */
+	synchronized String[] get(Object key) {
+		CachedSuggestions cached = entries.get(key);
+		if (cached == null) {
+			return null;
+		} else if (System.nanoTime() - cached.created > ttlNanos) {
+			entries.remove(key);
+			return null;
+		} else {
+			return cached.suggestions;
+		}
+	}
+
+	/**
+	 * @param key         the key to cache the suggestions under
+	 * @param suggestions the suggestions to cache
+	 */
+	synchronized void put(Object key, String[] suggestions) {
+		entries.put(key, new CachedSuggestions(suggestions, System.nanoTime()));
+	}
+
+	private static class CachedSuggestions {
+		private final String[] suggestions;
+		private final long created;
+
+		CachedSuggestions(String[] suggestions, long created) {
+			this.suggestions = suggestions;
+			this.created = created;
+		}
+	}
+
+}
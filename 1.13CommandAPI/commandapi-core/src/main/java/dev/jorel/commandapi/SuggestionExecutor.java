@@ -0,0 +1,101 @@
+package dev.jorel.commandapi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous suggestion providers on a thread pool managed by the
+ * CommandAPI, so slow suggestions (such as database lookups) don't block the
+ * thread which is serving tab-completion. Providers which fail, or which don't
+ * finish within their timeout, suggest nothing.
+ */
+final class SuggestionExecutor {
+
+	static final String[] NO_SUGGESTIONS = new String[0];
+
+	private static ExecutorService executor = null;
+	private static ScheduledExecutorService timer = null;
+
+	private SuggestionExecutor() {
+	}
+
+	/**
+	 * Runs a suggestion provider on the CommandAPI's suggestion threads
+	 * 
+	 * @param provider      the suggestion provider to run
+	 * @param timeoutMillis the number of milliseconds to wait for suggestions
+	 *                      before giving up, or 0 to wait indefinitely
+	 * @return a future which completes with the provider's suggestions, or with
+	 *         no suggestions if the provider fails or times out
+	 */
+	static CompletableFuture<String[]> supply(Supplier<CompletableFuture<String[]>> provider, long timeoutMillis) {
+		CompletableFuture<String[]> result = new CompletableFuture<>();
+		try {
+			if (timeoutMillis > 0) {
+				ScheduledFuture<?> timeout = getTimer().schedule(() -> result.complete(NO_SUGGESTIONS), timeoutMillis,
+						TimeUnit.MILLISECONDS);
+				result.whenComplete((suggestions, throwable) -> timeout.cancel(false));
+			}
+			getExecutor().execute(() -> {
+				try {
+					provider.get().whenComplete((suggestions, throwable) -> {
+						if (throwable != null) {
+							throwable.printStackTrace();
+						}
+						result.complete(suggestions == null ? NO_SUGGESTIONS : suggestions);
+					});
+				} catch (Exception e) {
+					e.printStackTrace();
+					result.complete(NO_SUGGESTIONS);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// The CommandAPI has been disabled
+			result.complete(NO_SUGGESTIONS);
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the suggestion threads. Suggestion providers which are still running
+	 * are interrupted
+	 */
+	static synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			timer.shutdownNow();
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			int threads = Math.max(1, CommandAPIMain.getConfiguration().getAsyncSuggestionThreads());
+			executor = Executors.newFixedThreadPool(threads, threadFactory("CommandAPI Suggestions"));
+			timer = Executors.newSingleThreadScheduledExecutor(threadFactory("CommandAPI Suggestion Timeout"));
+		}
+		return executor;
+	}
+
+	private static synchronized ScheduledExecutorService getTimer() {
+		getExecutor();
+		return timer;
+	}
+
+	private static ThreadFactory threadFactory(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + " #" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
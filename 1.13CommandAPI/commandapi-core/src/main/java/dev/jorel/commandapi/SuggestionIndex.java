@@ -0,0 +1,76 @@
+package dev.jorel.commandapi;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+/**
+ * A prefix index over a fixed array of suggestions. Suggestions are lowercased
+ * and sorted once, so suggestions which start with what the user has typed
+ * form a contiguous range which can be found with a binary search, instead of
+ * lowercasing and checking every suggestion on every keystroke.
+ */
+final class SuggestionIndex {
+
+	// Lowercased suggestions in sorted order, and the original suggestion for each
+	private final String[] keys;
+	private final String[] values;
+
+	/**
+	 * Compiles an array of suggestions into a prefix index
+	 * 
+	 * @param suggestions the suggestions to index
+	 */
+	SuggestionIndex(String[] suggestions) {
+		String[][] entries = new String[suggestions.length][];
+		for (int i = 0; i < suggestions.length; i++) {
+			entries[i] = new String[] { suggestions[i].toLowerCase(Locale.ROOT), suggestions[i] };
+		}
+		Arrays.sort(entries, Comparator.comparing(entry -> entry[0]));
+
+		this.keys = new String[entries.length];
+		this.values = new String[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			keys[i] = entries[i][0];
+			values[i] = entries[i][1];
+		}
+	}
+
+	/**
+	 * Adds every suggestion which starts with the remaining input of a
+	 * SuggestionsBuilder (ignoring case) to the builder
+	 * 
+	 * @param builder the SuggestionsBuilder to populate
+	 * @param limit   the maximum number of suggestions to add, or 0 for no limit
+	 * @return the built suggestions
+	 */
+	CompletableFuture<Suggestions> suggest(SuggestionsBuilder builder, int limit) {
+		String prefix = builder.getRemaining().toLowerCase(Locale.ROOT);
+		int start = lowerBound(prefix);
+		int end = limit <= 0 ? keys.length : Math.min(keys.length, start + limit);
+		for (int i = start; i < end && keys[i].startsWith(prefix); i++) {
+			builder.suggest(values[i]);
+		}
+		return builder.buildFuture();
+	}
+
+	// The index of the first key which is not less than the prefix
+	private int lowerBound(String prefix) {
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid].compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+}
@@ -0,0 +1,175 @@
+package dev.jorel.commandapi;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+/**
+ * Limits how often each player can run each CommandAPI suggestion provider.
+ * Clients request suggestions on every keystroke, so a request which arrives
+ * too soon after the player's last computed request for the same argument is
+ * deferred instead of being computed straight away. If a request with
+ * different input arrives while one is deferred, only the newest request is
+ * computed and the older one is answered with no suggestions, which the client
+ * discards anyway.
+ * <p>
+ * A single request runs the provider of every argument which could follow the
+ * input (for example, sibling arguments of a command), so the state is kept
+ * per player and per provider. Otherwise, sibling providers would defer or
+ * supersede each other within the same request.
+ */
+final class SuggestionThrottle {
+
+	private static final Map<UUID, Map<SuggestionProvider, ProviderState>> states = new HashMap<>();
+	private static final AtomicLong droppedRequests = new AtomicLong();
+
+	private SuggestionThrottle() {
+	}
+
+	/**
+	 * Wraps a suggestion provider so that requests from players are throttled
+	 * 
+	 * @param provider the suggestion provider to wrap
+	 * @param senderOf a function which returns the Bukkit sender of a request
+	 * @return the throttled suggestion provider, or the given provider if
+	 *         throttling is disabled
+	 */
+	static SuggestionProvider throttle(SuggestionProvider provider,
+			Function<CommandContext, CommandSender> senderOf) {
+		long interval = CommandAPIMain.getConfiguration().getSuggestionRequestInterval();
+		if (interval <= 0) {
+			return provider;
+		}
+		return (context, builder) -> {
+			CommandSender sender = senderOf.apply(context);
+			if (sender instanceof Player) {
+				return request(((Player) sender).getUniqueId(), interval, provider, context, builder);
+			} else {
+				return provider.getSuggestions(context, builder);
+			}
+		};
+	}
+
+	/**
+	 * @return the number of suggestion requests which were answered with no
+	 *         suggestions because a newer request from the same player replaced
+	 *         them
+	 */
+	static long getDroppedRequests() {
+		return droppedRequests.get();
+	}
+
+	/**
+	 * Forgets the throttling state of a player, for example when they log out
+	 * 
+	 * @param uuid the UUID of the player
+	 */
+	static synchronized void remove(UUID uuid) {
+		Map<SuggestionProvider, ProviderState> providerStates = states.remove(uuid);
+		if (providerStates != null) {
+			for (ProviderState state : providerStates.values()) {
+				if (state.pending != null) {
+					state.pending.task.cancel();
+				}
+			}
+		}
+	}
+
+	private static CompletableFuture<Suggestions> request(UUID uuid, long interval,
+			SuggestionProvider provider, CommandContext context, SuggestionsBuilder builder)
+			throws CommandSyntaxException {
+		PendingRequest superseded = null;
+		CompletableFuture<Suggestions> deferred = null;
+		synchronized (SuggestionThrottle.class) {
+			ProviderState state = states.computeIfAbsent(uuid, k -> new IdentityHashMap<>())
+					.computeIfAbsent(provider, k -> new ProviderState());
+
+			if (state.pending != null) {
+				// The same request (such as a duplicate packet) shares the deferred result
+				if (state.pending.builder.getInput().equals(builder.getInput())) {
+					return state.pending.result;
+				}
+
+				// A newer request supersedes the deferred one
+				state.pending.task.cancel();
+				superseded = state.pending;
+				state.pending = null;
+			}
+
+			long elapsed = (System.nanoTime() - state.lastRun) / 1000000L;
+			if (elapsed >= interval) {
+				state.lastRun = System.nanoTime();
+			} else {
+				// Defer this request until the player is allowed to make another one.
+				// Suggestions are computed on the main thread, so this is rounded up to
+				// the next tick
+				deferred = new CompletableFuture<>();
+				long delay = (interval - elapsed + 49L) / 50L;
+				PendingRequest pending = new PendingRequest(builder, deferred);
+				pending.task = Bukkit.getScheduler().runTaskLater(JavaPlugin.getPlugin(CommandAPIMain.class),
+						() -> run(state, pending, provider, context), delay);
+				state.pending = pending;
+			}
+		}
+
+		if (superseded != null) {
+			superseded.result.complete(superseded.builder.build());
+			droppedRequests.incrementAndGet();
+		}
+		return deferred == null ? provider.getSuggestions(context, builder) : deferred;
+	}
+
+	private static void run(ProviderState state, PendingRequest pending, SuggestionProvider provider,
+			CommandContext context) {
+		synchronized (SuggestionThrottle.class) {
+			if (state.pending != pending) {
+				return;
+			}
+			state.pending = null;
+			state.lastRun = System.nanoTime();
+		}
+
+		try {
+			CompletableFuture<Suggestions> suggestions = provider.getSuggestions(context, pending.builder);
+			suggestions.whenComplete((result, throwable) -> {
+				pending.result.complete(throwable == null ? result : pending.builder.build());
+			});
+		} catch (CommandSyntaxException e) {
+			pending.result.complete(pending.builder.build());
+		}
+	}
+
+	private static class ProviderState {
+		// Far enough in the past that the first request is never deferred
+		private long lastRun = System.nanoTime() - Long.MAX_VALUE / 2;
+		private PendingRequest pending = null;
+	}
+
+	private static class PendingRequest {
+		private final SuggestionsBuilder builder;
+		private final CompletableFuture<Suggestions> result;
+		private BukkitTask task;
+
+		PendingRequest(SuggestionsBuilder builder, CompletableFuture<Suggestions> result) {
+			this.builder = builder;
+			this.result = result;
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+package dev.jorel.commandapi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.mojang.brigadier.tree.CommandNode;
+
+/**
+ * Batches changes to the command tree which are made after the server has
+ * loaded. Changes are queued and applied together on the next tick, and the
+ * commands packet is then only sent to players who can see a difference in the
+ * top level commands which were changed.
+ * <p>
+ * Changes can be queued from any thread. They are always applied on the
+ * server thread.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+final class TreeUpdateQueue {
+
+	private final Supplier<CommandNode> root;
+	private final Function<Player, Object> sourceOf;
+	private final Consumer<Player> resendPackets;
+
+	// Guarded by this
+	private List<Runnable> changes = new ArrayList<>();
+	private List<Supplier<Collection<String>>> changedCommandNames = new ArrayList<>();
+	private BukkitTask task = null;
+
+	/**
+	 * @param root          a supplier of the root node of the command tree which
+	 *                      is sent to players
+	 * @param sourceOf      a function which returns the NMS command source of a
+	 *                      player
+	 * @param resendPackets a function which sends the commands packet to a player
+	 */
+	TreeUpdateQueue(Supplier<CommandNode> root, Function<Player, Object> sourceOf, Consumer<Player> resendPackets) {
+		this.root = root;
+		this.sourceOf = sourceOf;
+		this.resendPackets = resendPackets;
+	}
+
+	/**
+	 * Queues a change to the command tree, which is applied on the next tick
+	 *
+	 * @param commandNames the names of the top level commands which the change
+	 *                     adds, replaces or removes
+	 * @param change       the change to make
+	 */
+	void queue(Collection<String> commandNames, Runnable change) {
+		queue(() -> commandNames, change);
+	}
+
+	/**
+	 * Queues a change to the command tree, which is applied on the next tick
+	 *
+	 * @param commandNames a supplier of the names of the top level commands which
+	 *                     the change adds, replaces or removes. This is called
+	 *                     when the change is applied, before any queued change
+	 *                     is made
+	 * @param change       the change to make
+	 */
+	synchronized void queue(Supplier<Collection<String>> commandNames, Runnable change) {
+		changedCommandNames.add(commandNames);
+		changes.add(change);
+		if (task == null) {
+			task = Bukkit.getScheduler().runTask(JavaPlugin.getPlugin(CommandAPIMain.class), this::apply);
+		}
+	}
+
+	private void apply() {
+		// Changes queued while these are applied are applied on the next tick
+		List<Runnable> changes;
+		List<Supplier<Collection<String>>> changedCommandNames;
+		synchronized (this) {
+			changes = this.changes;
+			changedCommandNames = this.changedCommandNames;
+			this.changes = new ArrayList<>();
+			this.changedCommandNames = new ArrayList<>();
+			task = null;
+		}
+
+		Set<String> changedCommands = new LinkedHashSet<>();
+		for (Supplier<Collection<String>> commandNames : changedCommandNames) {
+			changedCommands.addAll(commandNames.get());
+		}
+
+		// Only the changed commands can look different to a player afterwards
+		Map<Player, Integer> before = new HashMap<>();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			before.put(player, fingerprint(changedCommands, sourceOf.apply(player)));
+		}
+
+		for (Runnable change : changes) {
+			try {
+				change.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		int resent = 0;
+		for (Map.Entry<Player, Integer> entry : before.entrySet()) {
+			if (entry.getKey().isOnline()
+					&& fingerprint(changedCommands, sourceOf.apply(entry.getKey())) != entry.getValue()) {
+				resendPackets.accept(entry.getKey());
+				resent++;
+			}
+		}
+
+		if (CommandAPIMain.getConfiguration().hasVerboseOutput()) {
+			CommandAPIMain.getLog().info("Applied " + changes.size() + " command tree changes, sent the commands packet to "
+					+ resent + " of " + before.size() + " players");
+		}
+	}
+
+	// A hash of the nodes below the changed commands which a command source can
+	// see. Nodes are hashed by identity, because changed commands are rebuilt
+	// from new nodes
+	private int fingerprint(Set<String> changedCommands, Object source) {
+		CommandNode root = this.root.get();
+		int hash = 1;
+		for (String commandName : changedCommands) {
+			CommandNode command = root.getChild(commandName);
+			hash = 31 * hash + (command == null || !command.canUse(source) ? 0 : fingerprint(command, source));
+		}
+		return hash;
+	}
+
+	private static int fingerprint(CommandNode command, Object source) {
+		Set<CommandNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<CommandNode> queue = new ArrayDeque<>();
+		queue.add(command);
+		visited.add(command);
+		int hash = 1;
+		while (!queue.isEmpty()) {
+			CommandNode node = queue.poll();
+			hash = 31 * hash + System.identityHashCode(node);
+			for (Object child : node.getChildren()) {
+				CommandNode childNode = (CommandNode) child;
+				if (childNode.canUse(source) && visited.add(childNode)) {
+					queue.add(childNode);
+				}
+			}
+		}
+		return hash;
+	}
+
+}
@@ -1,5 +1,7 @@
 package dev.jorel.commandapi.arguments;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -8,6 +10,7 @@ import org.bukkit.command.CommandSender;
 import com.mojang.brigadier.arguments.ArgumentType;
 
 import dev.jorel.commandapi.CommandPermission;
+import dev.jorel.commandapi.executors.LazyArguments;
 
 /**
  * The core abstract class for Command API arguments
@@ -61,6 +64,18 @@ public abstract class Argument implements IOverrideableSuggestions<Argument> {
 	/////////////////
 
 	private BiFunction<CommandSender, Object[], String[]> suggestions = null;
+	private String[] staticSuggestions = null;
+	private BiFunction<CommandSender, LazyArguments, CompletableFuture<String[]>> asyncSuggestions = null;
+	private StreamingSuggestionProvider streamingSuggestions = null;
+	private int maxSuggestions = 0;
+	private long suggestionTimeout = DEFAULT_SUGGESTION_TIMEOUT;
+	private boolean suggestionsUsePreviousArguments = false;
+
+	/**
+	 * The number of milliseconds that asynchronous suggestions are waited for by
+	 * default
+	 */
+	public static final long DEFAULT_SUGGESTION_TIMEOUT = 1000L;
 
 	/**
 	 * Override the suggestions of this argument with a String array. Typically,
@@ -72,6 +87,10 @@ public abstract class Argument implements IOverrideableSuggestions<Argument> {
 	@Override
 	public final Argument overrideSuggestions(String... suggestions) {
 		this.suggestions = (c, m) -> suggestions;
+		this.staticSuggestions = suggestions;
+		this.asyncSuggestions = null;
+		this.streamingSuggestions = null;
+		this.suggestionsUsePreviousArguments = false;
 		return this;
 	}
 
@@ -85,6 +104,10 @@ public abstract class Argument implements IOverrideableSuggestions<Argument> {
 	@Override
 	public final Argument overrideSuggestions(Function<CommandSender, String[]> suggestions) {
 		this.suggestions = (c, m) -> suggestions.apply(c);
+		this.staticSuggestions = null;
+		this.asyncSuggestions = null;
+		this.streamingSuggestions = null;
+		this.suggestionsUsePreviousArguments = false;
 		return this;
 	}
 	
@@ -98,6 +121,86 @@ public abstract class Argument implements IOverrideableSuggestions<Argument> {
 	@Override
 	public final Argument overrideSuggestions(BiFunction<CommandSender, Object[], String[]> suggestions) {
 		this.suggestions = suggestions;
+		this.staticSuggestions = null;
+		this.asyncSuggestions = null;
+		this.streamingSuggestions = null;
+		this.suggestionsUsePreviousArguments = true;
+		return this;
+	}
+
+	/**
+	 * Override the suggestions of this argument with a function that maps the
+	 * command sender and the previously declared arguments to a future String
+	 * array. The function is run on the CommandAPI's suggestion threads and
+	 * nothing is suggested if the future doesn't complete within
+	 * {@link #DEFAULT_SUGGESTION_TIMEOUT} milliseconds. Previously declared
+	 * arguments are only resolved (on the server thread) when they are used.
+	 * 
+	 * @param suggestions the function to override suggestions with
+	 * @return the current argument
+	 */
+	@Override
+	public final Argument overrideSuggestionsAsync(
+			BiFunction<CommandSender, LazyArguments, CompletableFuture<String[]>> suggestions) {
+		return overrideSuggestionsAsync(suggestions, DEFAULT_SUGGESTION_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Override the suggestions of this argument with a function that maps the
+	 * command sender and the previously declared arguments to a future String
+	 * array. The function is run on the CommandAPI's suggestion threads and
+	 * nothing is suggested if the future doesn't complete within the given
+	 * timeout. Previously declared arguments are only resolved (on the server
+	 * thread) when they are used.
+	 * 
+	 * @param suggestions the function to override suggestions with
+	 * @param timeout     how long to wait for suggestions, or 0 to wait
+	 *                    indefinitely
+	 * @param unit        the unit of the timeout
+	 * @return the current argument
+	 */
+	@Override
+	public final Argument overrideSuggestionsAsync(
+			BiFunction<CommandSender, LazyArguments, CompletableFuture<String[]>> suggestions, long timeout,
+			TimeUnit unit) {
+		this.suggestions = null;
+		this.staticSuggestions = null;
+		this.asyncSuggestions = suggestions;
+		this.streamingSuggestions = null;
+		this.suggestionTimeout = unit.toMillis(timeout);
+		this.suggestionsUsePreviousArguments = true;
+		return this;
+	}
+
+	/**
+	 * Override the suggestions of this argument with a provider that maps the
+	 * command sender, the previously declared arguments and the current input to
+	 * a stream of suggestions. The stream is only consumed until the maximum
+	 * number of suggestions for this argument is reached, and previously declared
+	 * arguments are only resolved when they are used.
+	 * 
+	 * @param suggestions the provider to override suggestions with
+	 * @return the current argument
+	 * @see #withMaxSuggestions(int)
+	 */
+	@Override
+	public final Argument overrideSuggestions(StreamingSuggestionProvider suggestions) {
+		this.suggestions = null;
+		this.staticSuggestions = null;
+		this.asyncSuggestions = null;
+		this.streamingSuggestions = suggestions;
+		this.suggestionsUsePreviousArguments = true;
+		return this;
+	}
+
+	/**
+	 * Limits the number of suggestions which are sent for this argument.
+	 * 
+	 * @param maxSuggestions the maximum number of suggestions, or 0 for no limit
+	 * @return the current argument
+	 */
+	public final Argument withMaxSuggestions(int maxSuggestions) {
+		this.maxSuggestions = maxSuggestions;
 		return this;
 	}
 
@@ -114,6 +217,142 @@ public abstract class Argument implements IOverrideableSuggestions<Argument> {
 		return suggestions;
 	}
 
+	/**
+	 * Returns the String array that the suggestions of this argument were
+	 * overridden with, or <code>null</code> if they were not overridden with a
+	 * fixed String array.
+	 * 
+	 * @return the fixed suggestions of this argument, or <code>null</code> if its
+	 *         suggestions are not fixed
+	 */
+	public final String[] getStaticSuggestions() {
+		return staticSuggestions;
+	}
+
+	/**
+	 * Returns a function that maps the command sender and previously declared
+	 * arguments to a future String array of suggestions, or <code>null</code> if
+	 * this argument's suggestions are not overridden asynchronously.
+	 * 
+	 * @return a function that provides suggestions asynchronously, or
+	 *         <code>null</code> if there are no asynchronous suggestions.
+	 */
+	@Override
+	public final BiFunction<CommandSender, LazyArguments, CompletableFuture<String[]>> getAsyncSuggestions() {
+		return asyncSuggestions;
+	}
+
+	/**
+	 * Returns a provider that lazily produces suggestions for this argument, or
+	 * <code>null</code> if this argument's suggestions are not overridden with a
+	 * streaming provider.
+	 * 
+	 * @return a streaming suggestion provider, or <code>null</code> if there is
+	 *         no streaming suggestion provider.
+	 */
+	@Override
+	public final StreamingSuggestionProvider getStreamingSuggestions() {
+		return streamingSuggestions;
+	}
+
+	/**
+	 * Returns the maximum number of suggestions which are sent for this
+	 * argument, or 0 if there is no limit.
+	 * 
+	 * @return the maximum number of suggestions for this argument
+	 */
+	public final int getMaxSuggestions() {
+		return maxSuggestions;
+	}
+
+	/**
+	 * Returns whether this argument's overridden suggestions depend on the
+	 * previously declared arguments. If they don't, the previously declared
+	 * arguments don't have to be parsed when suggestions are requested.
+	 * 
+	 * @return true if this argument's suggestions use the previously declared
+	 *         arguments
+	 */
+	public final boolean suggestionsUsePreviousArguments() {
+		return suggestionsUsePreviousArguments;
+	}
+
+	/**
+	 * Returns the number of milliseconds that this argument's asynchronous
+	 * suggestions are waited for, or 0 if they are waited for indefinitely.
+	 * 
+	 * @return the timeout of this argument's asynchronous suggestions
+	 */
+	public final long getSuggestionTimeout() {
+		return suggestionTimeout;
+	}
+
+	///////////////////////
+	// Suggestion Caches //
+	///////////////////////
+
+	private SuggestionCacheKey suggestionCacheKey = null;
+	private long suggestionCacheTTL = 0L;
+	private int suggestionCacheSize = 0;
+
+	/**
+	 * Caches the suggestions provided by this argument's overridden suggestion
+	 * function, so repeated suggestion requests don't have to run the function
+	 * again. Cached suggestions expire after the given time, and the least
+	 * recently used suggestions are discarded when the cache is full.
+	 * 
+	 * @param key     what the cached suggestions depend on
+	 * @param ttl     how long suggestions are cached for
+	 * @param unit    the unit of the ttl
+	 * @param maxSize the maximum number of suggestion arrays to cache
+	 * @return the current argument
+	 * @throws IllegalArgumentException if the ttl is shorter than a millisecond,
+	 *                                  or maxSize is not positive
+	 */
+	public final Argument cacheSuggestions(SuggestionCacheKey key, long ttl, TimeUnit unit, int maxSize) {
+		if (unit.toMillis(ttl) <= 0) {
+			throw new IllegalArgumentException("Suggestions must be cached for at least one millisecond");
+		}
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("The suggestion cache must hold at least one suggestion array");
+		}
+		this.suggestionCacheKey = key;
+		this.suggestionCacheTTL = unit.toMillis(ttl);
+		this.suggestionCacheSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * Returns what the cached suggestions of this argument depend on, or
+	 * <code>null</code> if this argument's suggestions are not cached.
+	 * 
+	 * @return the key of this argument's suggestion cache, or <code>null</code> if
+	 *         suggestions are not cached
+	 */
+	public final SuggestionCacheKey getSuggestionCacheKey() {
+		return suggestionCacheKey;
+	}
+
+	/**
+	 * Returns the number of milliseconds that this argument's suggestions are
+	 * cached for.
+	 * 
+	 * @return the time to live of this argument's cached suggestions
+	 */
+	public final long getSuggestionCacheTTL() {
+		return suggestionCacheTTL;
+	}
+
+	/**
+	 * Returns the maximum number of suggestion arrays that are cached for this
+	 * argument.
+	 * 
+	 * @return the maximum size of this argument's suggestion cache
+	 */
+	public final int getSuggestionCacheSize() {
+		return suggestionCacheSize;
+	}
+
 	/////////////////
 	// Permissions //
 	/////////////////
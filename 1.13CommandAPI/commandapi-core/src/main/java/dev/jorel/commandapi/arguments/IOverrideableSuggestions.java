@@ -1,10 +1,14 @@
 package dev.jorel.commandapi.arguments;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import org.bukkit.command.CommandSender;
 
+import dev.jorel.commandapi.executors.LazyArguments;
+
 /**
  * An interface declaring methods required to override argument suggestions
  */
@@ -37,6 +41,40 @@ public interface IOverrideableSuggestions<T extends Argument> {
 	 */
 	T overrideSuggestions(BiFunction<CommandSender, Object[], String[]> suggestions);
 
+	/**
+	 * Override the suggestions of this argument with a function that maps the
+	 * command sender and the previously declared arguments to a future String
+	 * array, which is run asynchronously.
+	 * 
+	 * @param suggestions the function to override suggestions with
+	 * @return the current argument
+	 */
+	T overrideSuggestionsAsync(BiFunction<CommandSender, LazyArguments, CompletableFuture<String[]>> suggestions);
+
+	/**
+	 * Override the suggestions of this argument with a function that maps the
+	 * command sender and the previously declared arguments to a future String
+	 * array, which is run asynchronously with a timeout.
+	 * 
+	 * @param suggestions the function to override suggestions with
+	 * @param timeout     how long to wait for suggestions, or 0 to wait
+	 *                    indefinitely
+	 * @param unit        the unit of the timeout
+	 * @return the current argument
+	 */
+	T overrideSuggestionsAsync(BiFunction<CommandSender, LazyArguments, CompletableFuture<String[]>> suggestions,
+			long timeout, TimeUnit unit);
+
+	/**
+	 * Override the suggestions of this argument with a provider that maps the
+	 * command sender, the previously declared arguments and the current input to
+	 * a stream of suggestions.
+	 * 
+	 * @param suggestions the provider to override suggestions with
+	 * @return the current argument
+	 */
+	T overrideSuggestions(StreamingSuggestionProvider suggestions);
+
 	/**
 	 * Returns a function that maps the command sender to a String array of
 	 * suggestions for the current command, or <code>null</code> if this is not
@@ -46,5 +84,24 @@ public interface IOverrideableSuggestions<T extends Argument> {
 	 *         are no overridden suggestions.
 	 */
 	BiFunction<CommandSender, Object[], String[]> getOverriddenSuggestions();
+
+	/**
+	 * Returns a function that maps the command sender and previously declared
+	 * arguments to a future String array of suggestions, or <code>null</code> if
+	 * this is not overridden asynchronously.
+	 * 
+	 * @return a function that provides suggestions asynchronously, or
+	 *         <code>null</code> if there are no asynchronous suggestions.
+	 */
+	BiFunction<CommandSender, LazyArguments, CompletableFuture<String[]>> getAsyncSuggestions();
+
+	/**
+	 * Returns a provider that lazily produces suggestions for this argument, or
+	 * <code>null</code> if this is not overridden with a streaming provider.
+	 * 
+	 * @return a streaming suggestion provider, or <code>null</code> if there is
+	 *         no streaming suggestion provider.
+	 */
+	StreamingSuggestionProvider getStreamingSuggestions();
 	
 }
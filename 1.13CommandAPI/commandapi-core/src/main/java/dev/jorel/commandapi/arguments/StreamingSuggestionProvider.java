@@ -0,0 +1,31 @@
+package dev.jorel.commandapi.arguments;
+
+import java.util.stream.Stream;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.executors.LazyArguments;
+
+/**
+ * A suggestion provider which produces its suggestions lazily. Suggestions are
+ * consumed from the stream until the argument's maximum number of suggestions
+ * has been reached, so the rest of the stream is never computed.
+ */
+@FunctionalInterface
+public interface StreamingSuggestionProvider {
+
+	/**
+	 * Returns a stream of suggestions for an argument. Suggestions which don't
+	 * start with the prefix are ignored, so the prefix can be used to skip
+	 * suggestions at their source (for example, in a database query).
+	 * 
+	 * @param sender the command sender that is requesting suggestions
+	 * @param args   the previously declared arguments, which are resolved when
+	 *               they are first used
+	 * @param prefix what the command sender has typed for this argument so far,
+	 *               in lower case
+	 * @return a stream of suggestions
+	 */
+	Stream<String> getSuggestions(CommandSender sender, LazyArguments args, String prefix);
+
+}
@@ -0,0 +1,26 @@
+package dev.jorel.commandapi.arguments;
+
+/**
+ * An enum representing what the cached suggestions of an argument depend on
+ */
+public enum SuggestionCacheKey {
+	/**
+	 * Suggestions are cached for each command sender. Entities (including
+	 * players) are identified by their UUID and other senders by their name
+	 */
+	SENDER,
+
+	/**
+	 * Suggestions are cached for each distinct input of the previously declared
+	 * arguments, as typed by the command sender. Input which contains entity
+	 * selectors or relative coordinates (such as <code>@s</code> or
+	 * <code>~ ~ ~</code>) depends on who typed it, so it is cached separately
+	 * for each command sender
+	 */
+	PREVIOUS_ARGUMENTS,
+
+	/**
+	 * Suggestions are shared between every command sender
+	 */
+	GLOBAL;
+}
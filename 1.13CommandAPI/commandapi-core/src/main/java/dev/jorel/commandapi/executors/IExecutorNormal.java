@@ -1,6 +1,5 @@
 package dev.jorel.commandapi.executors;
 
-import java.lang.reflect.Method;
 import java.util.Arrays;
 
 import org.bukkit.command.CommandSender;
@@ -18,27 +17,53 @@ public interface IExecutorNormal<T extends CommandSender> {
 	
 	/**
 	 * Executes the command executor with the provided command sender and the provided arguments.
+	 * This looks up the sender type using reflection, so {@link #executeWith(Class, CommandSender, Object[])}
+	 * should be used with a cached sender type where possible.
 	 * @param sender the command sender for this command
 	 * @param args the arguments provided to this command
 	 * @return 1 if the command succeeds, 0 if the command fails
 	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
 	 */
-	@SuppressWarnings("unchecked")
 	default int executeWith(CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
-		Method runMethod = Arrays.stream(this.getClass().getDeclaredMethods()).filter(m -> m.getName().equals("run")).findFirst().get();
-		Class<?> type = runMethod.getParameterTypes()[0];
-		if(type.isInstance(sender)) {
-			this.run((T) type.cast(sender), args);
+		return executeWith(getSenderType(), sender, args);
+	}
+	
+	/**
+	 * Executes the command executor with the provided command sender and the provided arguments.
+	 * @param senderType the type of command sender that this executor accepts, as given by {@link #getSenderType()}
+	 * @param sender the command sender for this command
+	 * @param args the arguments provided to this command
+	 * @return 1 if the command succeeds, 0 if the command fails
+	 * @throws WrapperCommandSyntaxException if an error occurs during the execution of this command
+	 */
+	@SuppressWarnings("unchecked")
+	default int executeWith(Class<?> senderType, CommandSender sender, Object[] args) throws WrapperCommandSyntaxException {
+		if(senderType.isInstance(sender)) {
+			this.run((T) sender, args);
 			return 1;
 		} else {
 			throw new WrapperCommandSyntaxException(
 				new SimpleCommandExceptionType(
-					new LiteralMessage("You must be a " + type.getSimpleName().toLowerCase() + " to run this command")
+					new LiteralMessage("You must be a " + senderType.getSimpleName().toLowerCase() + " to run this command")
 				).create()
 			);
 		}
 	}
 	
+	/**
+	 * Returns the type of command sender that this executor accepts. This uses reflection,
+	 * so it should be resolved once and cached instead of being looked up for every execution.
+	 * @return the type of command sender that this executor accepts
+	 */
+	default Class<?> getSenderType() {
+		//Bridge methods may also be called run, so use the most specific run method
+		return Arrays.stream(this.getClass().getDeclaredMethods())
+			.filter(m -> m.getName().equals("run") && m.getParameterCount() == 2)
+			.map(m -> m.getParameterTypes()[0])
+			.reduce((a, b) -> a.isAssignableFrom(b) ? b : a)
+			.orElse(CommandSender.class);
+	}
+	
 	/**
 	 * Returns the type of the sender of the current executor.
 	 * @return the type of the sender of the current executor
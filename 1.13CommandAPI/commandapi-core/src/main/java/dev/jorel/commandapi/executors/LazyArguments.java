@@ -0,0 +1,55 @@
+package dev.jorel.commandapi.executors;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * A lazy view over the arguments given to a command. Each argument is only
+ * converted to its Bukkit type the first time it is accessed, and the converted
+ * value is reused for the rest of the command's execution. This means an
+ * executor which returns early never pays for arguments it didn't look at.
+ */
+public interface LazyArguments {
+
+	/**
+	 * Returns the number of arguments given to this command
+	 * @return the number of arguments given to this command
+	 */
+	int size();
+
+	/**
+	 * Returns an argument, converting it to its Bukkit type if it hasn't been
+	 * accessed already. Unlike {@link #toArray()}, an argument which converts to
+	 * null keeps its index, so the arguments after it aren't shifted down
+	 * @param index the index of the argument, IN THE ORDER of insertion into the
+	 *            hashmap of arguments
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument cannot be converted
+	 */
+	Object get(int index) throws WrapperCommandSyntaxException;
+
+	/**
+	 * Returns an argument cast to the provided type, converting it to its Bukkit
+	 * type if it hasn't been accessed already
+	 * @param <T> the type of the argument
+	 * @param index the index of the argument, IN THE ORDER of insertion into the
+	 *            hashmap of arguments
+	 * @param type the class of the argument
+	 * @return the argument at the provided index
+	 * @throws WrapperCommandSyntaxException if the argument cannot be converted
+	 */
+	default <T> T get(int index, Class<T> type) throws WrapperCommandSyntaxException {
+		return type.cast(get(index));
+	}
+
+	/**
+	 * Converts every argument and returns them as an array, in the same form as
+	 * the non-lazy equivalent. For a command executor, this is the array given to
+	 * a normal command executor, which leaves out arguments that convert to null.
+	 * For a suggestion provider, this is the array of previous arguments, which
+	 * keeps them
+	 * @return every argument given to this command
+	 * @throws WrapperCommandSyntaxException if an argument cannot be converted
+	 */
+	Object[] toArray() throws WrapperCommandSyntaxException;
+
+}
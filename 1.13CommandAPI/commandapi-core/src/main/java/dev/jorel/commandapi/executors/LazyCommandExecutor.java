@@ -0,0 +1,27 @@
+package dev.jorel.commandapi.executors;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * A normal command executor for a CommandSender, whose arguments are converted
+ * when they are first accessed
+ */
+@FunctionalInterface
+public interface LazyCommandExecutor {
+
+	/**
+	 * The code to run when this command is performed
+	 * 
+	 * @param sender
+	 *            The sender of this command (a player, the console etc.)
+	 * @param args
+	 *            The arguments given to this command. The objects are
+	 *            determined by the hashmap of arguments IN THE ORDER of
+	 *            insertion into the hashmap, and are only converted when
+	 *            they are accessed
+	 */
+	void run(CommandSender sender, LazyArguments args) throws WrapperCommandSyntaxException;
+
+}
@@ -0,0 +1,28 @@
+package dev.jorel.commandapi.executors;
+
+import org.bukkit.command.CommandSender;
+
+import dev.jorel.commandapi.exceptions.WrapperCommandSyntaxException;
+
+/**
+ * A resulting command executor for a CommandSender, whose arguments are
+ * converted when they are first accessed
+ */
+@FunctionalInterface
+public interface LazyResultingCommandExecutor {
+
+	/**
+	 * The code to run when this command is performed
+	 * 
+	 * @param sender
+	 *            The sender of this command (a player, the console etc.)
+	 * @param args
+	 *            The arguments given to this command. The objects are
+	 *            determined by the hashmap of arguments IN THE ORDER of
+	 *            insertion into the hashmap, and are only converted when
+	 *            they are accessed
+	 * @return the result of this command
+	 */
+	int run(CommandSender sender, LazyArguments args) throws WrapperCommandSyntaxException;
+
+}
@@ -0,0 +1,207 @@
+package dev.jorel.commandapi.nms;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.ClickEvent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
+
+/**
+ * Converts Minecraft's chat components into BungeeCord components.
+ * <p>
+ * NMS chat components are turned into a JSON tree by Minecraft's own
+ * serializer, which is then walked directly to build BungeeCord components.
+ * This avoids writing the component out to a JSON string, only for BungeeCord
+ * to parse it back in again. A component which isn't a plain text component
+ * (such as a translatable, score or selector component, or a component with a
+ * hover event or a hex color) is parsed by BungeeCord's ComponentSerializer on
+ * its own, without its children, which are still converted directly.
+ */
+public final class ComponentConverter {
+
+	// The color names used in chat component JSON, looked up by their legacy
+	// codes, which every version of BungeeCord's ChatColor supports
+	private static final Map<String, ChatColor> COLORS = new HashMap<>();
+
+	static {
+		String[] names = { "black", "dark_blue", "dark_green", "dark_aqua", "dark_red", "dark_purple", "gold", "gray",
+				"dark_gray", "blue", "green", "aqua", "red", "light_purple", "yellow", "white" };
+		String codes = "0123456789abcdef";
+		for (int i = 0; i < names.length; i++) {
+			COLORS.put(names[i], ChatColor.getByChar(codes.charAt(i)));
+		}
+		COLORS.put("reset", ChatColor.getByChar('r'));
+	}
+
+	private ComponentConverter() {
+	}
+
+	/**
+	 * Finds the Gson instance that an NMS ChatSerializer uses to serialize chat
+	 * components. This is found by its type, so it doesn't depend on the name of
+	 * the (obfuscated) field it is stored in
+	 *
+	 * @param chatSerializer the NMS IChatBaseComponent.ChatSerializer class
+	 * @return the Gson instance used by the serializer, or null if it could not
+	 *         be found
+	 */
+	public static Gson getSerializer(Class<?> chatSerializer) {
+		for (Field field : chatSerializer.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == Gson.class) {
+				try {
+					field.setAccessible(true);
+					return (Gson) field.get(null);
+				} catch (ReflectiveOperationException | SecurityException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Converts a chat component's JSON tree into BungeeCord components
+	 *
+	 * @param json the JSON representation of a chat component
+	 * @return the equivalent array of BungeeCord components
+	 */
+	public static BaseComponent[] fromJson(JsonElement json) {
+		if (json.isJsonArray()) {
+			JsonArray array = json.getAsJsonArray();
+			BaseComponent[] result = new BaseComponent[array.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = convert(array.get(i));
+			}
+			return result;
+		}
+		return new BaseComponent[] { convert(json) };
+	}
+
+	private static BaseComponent convert(JsonElement json) {
+		if (json.isJsonPrimitive()) {
+			return new TextComponent(json.getAsString());
+		} else if (!json.isJsonObject()) {
+			return parse(json);
+		}
+
+		JsonObject object = json.getAsJsonObject();
+		BaseComponent component = convertText(object);
+		if (component == null) {
+			// Only this component is left to BungeeCord. Its children are still
+			// converted below
+			JsonObject withoutExtra = new JsonObject();
+			for (Entry<String, JsonElement> entry : object.entrySet()) {
+				if (!entry.getKey().equals("extra")) {
+					withoutExtra.add(entry.getKey(), entry.getValue());
+				}
+			}
+			component = parse(withoutExtra);
+		}
+
+		if (object.has("extra")) {
+			for (JsonElement child : object.getAsJsonArray("extra")) {
+				component.addExtra(convert(child));
+			}
+		}
+		return component;
+	}
+
+	// Converts a text component without its children, or returns null if it has
+	// to be handled by BungeeCord
+	private static TextComponent convertText(JsonObject object) {
+		if (!object.has("text")) {
+			return null;
+		}
+		TextComponent component = new TextComponent(object.get("text").getAsString());
+
+		for (Entry<String, JsonElement> entry : object.entrySet()) {
+			JsonElement value = entry.getValue();
+			switch (entry.getKey()) {
+			case "text":
+			case "extra":
+				break;
+			case "color": {
+				ChatColor color = getColor(value.getAsString());
+				if (color == null) {
+					return null;
+				}
+				component.setColor(color);
+				break;
+			}
+			case "bold":
+				component.setBold(value.getAsBoolean());
+				break;
+			case "italic":
+				component.setItalic(value.getAsBoolean());
+				break;
+			case "underlined":
+				component.setUnderlined(value.getAsBoolean());
+				break;
+			case "strikethrough":
+				component.setStrikethrough(value.getAsBoolean());
+				break;
+			case "obfuscated":
+				component.setObfuscated(value.getAsBoolean());
+				break;
+			case "insertion":
+				component.setInsertion(value.getAsString());
+				break;
+			case "clickEvent": {
+				ClickEvent clickEvent = getClickEvent(value.getAsJsonObject());
+				if (clickEvent == null) {
+					return null;
+				}
+				component.setClickEvent(clickEvent);
+				break;
+			}
+			default:
+				// Hover events, fonts etc.
+				return null;
+			}
+		}
+		return component;
+	}
+
+	// An array parses to its first element, with the rest of the array as extras
+	private static BaseComponent parse(JsonElement json) {
+		BaseComponent[] parsed = ComponentSerializer.parse(json.toString());
+		if (parsed.length == 1) {
+			return parsed[0];
+		}
+		TextComponent component = new TextComponent("");
+		for (BaseComponent part : parsed) {
+			component.addExtra(part);
+		}
+		return component;
+	}
+
+	// Named colors only. Hex colors are left to BungeeCord
+	private static ChatColor getColor(String name) {
+		return COLORS.get(name);
+	}
+
+	private static ClickEvent getClickEvent(JsonObject object) {
+		if (!object.has("action") || !object.has("value")) {
+			return null;
+		}
+		try {
+			ClickEvent.Action action = ClickEvent.Action.valueOf(object.get("action").getAsString().toUpperCase(Locale.ROOT));
+			return new ClickEvent(action, object.get("value").getAsString());
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+}
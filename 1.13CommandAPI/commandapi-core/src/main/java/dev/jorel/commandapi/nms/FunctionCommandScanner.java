@@ -0,0 +1,66 @@
+package dev.jorel.commandapi.nms;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds out whether the source of a Minecraft function uses any of a set of
+ * commands. Functions which use CommandAPI or plugin commands fail to load
+ * when the server starts (the commands haven't been registered yet), so
+ * datapacks only have to be reloaded if a function's source uses one of them.
+ * <p>
+ * A command is used if it starts a line, or follows <code>run</code> (as in
+ * <code>execute ... run</code>). This can find commands which aren't really
+ * used (for example, an argument which happens to be called <code>run</code>),
+ * but never misses a command which is.
+ */
+public final class FunctionCommandScanner {
+
+	private FunctionCommandScanner() {
+	}
+
+	/**
+	 * @param reader       a reader for the source of a function
+	 * @param commandNames the names of the commands to look for, in lower case
+	 * @return true if the function uses any of the commands
+	 * @throws IOException if the function's source cannot be read
+	 */
+	public static boolean usesCommands(BufferedReader reader, Set<String> commandNames) throws IOException {
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (usesCommands(line, commandNames)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param line         a line of a function
+	 * @param commandNames the names of the commands to look for, in lower case
+	 * @return true if the line uses any of the commands
+	 */
+	public static boolean usesCommands(String line, Set<String> commandNames) {
+		line = line.trim();
+		if (line.isEmpty() || line.startsWith("#")) {
+			return false;
+		}
+
+		String[] tokens = line.split("\\s+");
+		for (int i = 0; i < tokens.length; i++) {
+			if ((i == 0 || tokens[i - 1].equals("run")) && isCommand(tokens[i], commandNames)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Commands may be namespaced, such as minecraft:mycommand
+	private static boolean isCommand(String token, Set<String> commandNames) {
+		String name = token.toLowerCase(Locale.ROOT);
+		return commandNames.contains(name) || commandNames.contains(name.substring(name.indexOf(':') + 1));
+	}
+
+}
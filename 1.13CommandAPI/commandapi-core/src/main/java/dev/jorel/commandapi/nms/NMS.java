@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.Set;
 
 import org.bukkit.Axis;
 import org.bukkit.ChatColor;
@@ -34,6 +35,7 @@ import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.CommandNode;
 
 import de.tr7zw.nbtapi.NBTContainer;
 import dev.jorel.commandapi.arguments.EntitySelectorArgument.EntitySelector;
@@ -69,6 +71,14 @@ public interface NMS {
 	 */
 	void resendPackets(Player player);
 	
+	/**
+	 * Wraps a command from the Brigadier dispatcher in a Bukkit command, in the
+	 * same way that Bukkit wraps Minecraft's commands when the server loads
+	 * @param node the top level node of the command
+	 * @return a Bukkit command which runs the command node
+	 */
+	Command wrapCommandNode(CommandNode<?> node);
+	
 	/**
 	 * A String array of Minecraft versions that this NMS implementation
 	 * is compatible with. For example, ["1.14", "1.14.1", "1.14.2", "1.14.3"]
@@ -123,6 +133,14 @@ public interface NMS {
 	 * @return true if Command is an instance of VanillaCommandWrapper
 	 */
 	boolean isVanillaCommandWrapper(Command command);
+
+	/**
+	 * Returns the NMS command source (a CommandListenerWrapper) of a Bukkit
+	 * command sender
+	 * @param sender The Bukkit command sender
+	 * @return A CommandListenerWrapper which represents the command sender
+	 */
+	Object getCLWFromCommandSender(CommandSender sender);
 	
 	/**
 	 * Returns the Server's internal (OBC) CommandMap
@@ -139,16 +157,39 @@ public interface NMS {
 	 */
 	default void reloadDataPacks() throws NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {};
 	
+	/**
+	 * Binds the loaded datapack functions to the updated commandDispatcher tree
+	 * without reloading datapacks, if no datapack function uses a command which
+	 * wasn't available when datapacks were first loaded
+	 * @param commandNames the names of the commands which weren't available when datapacks
+	 * were first loaded (such as CommandAPI and plugin commands), in lower case
+	 * @return true if the functions were rebound, or false if the datapacks have to be reloaded
+	 * @throws SecurityException 
+	 * @throws NoSuchFieldException 
+	 * @throws IllegalAccessException 
+	 * @throws IllegalArgumentException 
+	 */
+	default boolean rebindDataPacks(Set<String> commandNames) throws NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
+		return false;
+	};
+	
+	/**
+	 * Builds the index used to convert registry-backed arguments (sounds, biomes,
+	 * enchantments and potion effects) into their Bukkit constants. This is called
+	 * when the CommandAPI hooks into NMS and again after datapacks are reloaded
+	 */
+	void buildRegistryIndex();
+	
 	/** Argument implementations with CommandSyntaxExceptions */
 	Advancement         getAdvancement(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException;
 	BaseComponent[]     getChat(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException; 
 	Environment         getDimension(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException;
 	ItemStack           getItemStack(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException;
 	Object              getEntitySelector(CommandContext<?> cmdCtx, String key, EntitySelector selector) throws CommandSyntaxException;
-	EntityType          getEntityType(CommandContext<?> cmdCtx, String key, CommandSender sender) throws CommandSyntaxException;
+	EntityType          getEntityType(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException;
 	FunctionWrapper[]   getFunction(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException;
-	Location            getLocation(CommandContext<?> cmdCtx, String key, LocationType locationType, CommandSender sender) throws CommandSyntaxException;
-	Location2D          getLocation2D(CommandContext<?> cmdCtx, String key, LocationType locationType2d, CommandSender sender) throws CommandSyntaxException;
+	Location            getLocation(CommandContext<?> cmdCtx, String key, LocationType locationType, World world) throws CommandSyntaxException;
+	Location2D          getLocation2D(CommandContext<?> cmdCtx, String key, LocationType locationType2d, World world) throws CommandSyntaxException;
 	String              getObjective(CommandContext<?> cmdCtx, String key, CommandSender sender) throws IllegalArgumentException, CommandSyntaxException;
 	Player              getPlayer(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException;
 	PotionEffectType    getPotionEffect(CommandContext<?> cmdCtx, String key) throws CommandSyntaxException;
@@ -0,0 +1,184 @@
+package dev.jorel.commandapi.nms;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.bukkit.Sound;
+import org.bukkit.block.Biome;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.EntityType;
+import org.bukkit.potion.PotionEffectType;
+
+import com.mojang.brigadier.StringReader;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import dev.jorel.commandapi.wrappers.MathOperation;
+
+/**
+ * An immutable index from Minecraft's registry entries to their Bukkit
+ * constants. This is built once when the CommandAPI hooks into NMS (and again
+ * when datapacks are reloaded), so converting a registry-backed argument is a
+ * single map lookup instead of a scan over every constant or the creation of a
+ * new Bukkit wrapper.
+ * <p>
+ * This also indexes the operations that Minecraft parses for each scoreboard
+ * operator, so a math operation argument doesn't have to be applied to a test
+ * scoreboard to find out which operation it is.
+ */
+public final class RegistryIndex {
+
+	/**
+	 * An index with no entries, used before an NMS implementation has built its
+	 * own index
+	 */
+	public static final RegistryIndex EMPTY = new RegistryIndex(Collections.emptyMap(), Collections.emptyMap(),
+			Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+	private final Map<String, Sound> sounds;
+	private final Map<String, Biome> biomes;
+	private final Map<Object, Enchantment> enchantments;
+	private final Map<Object, PotionEffectType> potionEffects;
+	private final Map<String, EntityType> entityTypes;
+	private final Map<Object, MathOperation> mathOperations;
+
+	private RegistryIndex(Map<String, Sound> sounds, Map<String, Biome> biomes, Map<Object, Enchantment> enchantments,
+			Map<Object, PotionEffectType> potionEffects, Map<String, EntityType> entityTypes,
+			Map<Object, MathOperation> mathOperations) {
+		this.sounds = sounds;
+		this.biomes = biomes;
+		this.enchantments = enchantments;
+		this.potionEffects = potionEffects;
+		this.entityTypes = entityTypes;
+		this.mathOperations = mathOperations;
+	}
+
+	/**
+	 * Builds an index from the Bukkit constants which are currently registered
+	 *
+	 * @param sounds             a map of Minecraft sound keys (such as
+	 *                           <code>entity.pig.ambient</code>) to their Bukkit
+	 *                           sounds
+	 * @param enchantmentHandle  a function which returns the NMS enchantment of a
+	 *                           Bukkit enchantment, or null if it doesn't have one
+	 * @param potionEffectHandle a function which returns the NMS mob effect of a
+	 *                           Bukkit potion effect type, or null if it doesn't
+	 *                           have one
+	 * @param mathOperationType  the NMS argument type for math operations
+	 * @return a new registry index
+	 */
+	public static RegistryIndex build(Map<String, Sound> sounds, Function<Enchantment, Object> enchantmentHandle,
+			Function<PotionEffectType, Object> potionEffectHandle, ArgumentType<?> mathOperationType) {
+		Map<String, Biome> biomes = new HashMap<>();
+		for (Biome biome : Biome.values()) {
+			biomes.put(biome.name().toLowerCase(Locale.ROOT), biome);
+		}
+
+		Map<Object, Enchantment> enchantments = new IdentityHashMap<>();
+		for (Enchantment enchantment : Enchantment.values()) {
+			Object handle = enchantmentHandle.apply(enchantment);
+			if (handle != null) {
+				enchantments.put(handle, enchantment);
+			}
+		}
+
+		// PotionEffectType.values() is indexed by id, so it may contain gaps
+		Map<Object, PotionEffectType> potionEffects = new IdentityHashMap<>();
+		for (PotionEffectType potionEffect : PotionEffectType.values()) {
+			Object handle = potionEffect == null ? null : potionEffectHandle.apply(potionEffect);
+			if (handle != null) {
+				potionEffects.put(handle, potionEffect);
+			}
+		}
+
+		// UNKNOWN is the only entity type without a key
+		Map<String, EntityType> entityTypes = new HashMap<>();
+		for (EntityType entityType : EntityType.values()) {
+			String key = entityType == EntityType.UNKNOWN ? null : getKey(entityType);
+			if (key != null) {
+				entityTypes.put(key, entityType);
+			}
+		}
+
+		// Minecraft's operations don't capture anything, so parsing an operator
+		// always produces the same instance
+		Map<Object, MathOperation> mathOperations = new IdentityHashMap<>();
+		for (MathOperation mathOperation : MathOperation.values()) {
+			try {
+				mathOperations.put(mathOperationType.parse(new StringReader(mathOperation.getOperator())), mathOperation);
+			} catch (CommandSyntaxException e) {
+				e.printStackTrace();
+			}
+		}
+
+		return new RegistryIndex(new HashMap<>(sounds), biomes, enchantments, potionEffects, entityTypes,
+				mathOperations);
+	}
+
+	// Entity types only have a NamespacedKey from 1.14, before which their names
+	// are the same as their keys
+	@SuppressWarnings("deprecation")
+	private static String getKey(EntityType entityType) {
+		try {
+			return entityType.getKey().getKey();
+		} catch (NoSuchMethodError e) {
+			return entityType.getName();
+		}
+	}
+
+	/**
+	 * @param key the Minecraft key of a sound, without its namespace
+	 * @return the Bukkit sound for that key, or null if there isn't one
+	 */
+	public Sound getSound(String key) {
+		return sounds.get(key);
+	}
+
+	/**
+	 * @param key the Minecraft key of a biome, without its namespace
+	 * @return the Bukkit biome for that key, or null if there isn't one
+	 */
+	public Biome getBiome(String key) {
+		return biomes.get(key);
+	}
+
+	/**
+	 * @param key the Minecraft key of an entity type, without its namespace
+	 * @return the Bukkit entity type for that key, or null if there isn't one
+	 */
+	public EntityType getEntityType(String key) {
+		return entityTypes.get(key);
+	}
+
+	/**
+	 * @param handle an NMS enchantment
+	 * @return the registered Bukkit enchantment for that NMS enchantment, or null
+	 *         if there isn't one
+	 */
+	public Enchantment getEnchantment(Object handle) {
+		return enchantments.get(handle);
+	}
+
+	/**
+	 * @param handle an NMS mob effect
+	 * @return the registered Bukkit potion effect type for that mob effect, or
+	 *         null if there isn't one
+	 */
+	public PotionEffectType getPotionEffect(Object handle) {
+		return potionEffects.get(handle);
+	}
+
+	/**
+	 * @param operation an NMS math operation, as parsed by Minecraft
+	 * @return the MathOperation for that NMS math operation, or null if it isn't
+	 *         indexed
+	 */
+	public MathOperation getMathOperation(Object operation) {
+		return mathOperations.get(operation);
+	}
+
+}
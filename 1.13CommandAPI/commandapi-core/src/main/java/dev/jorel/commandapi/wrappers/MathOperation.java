@@ -8,47 +8,61 @@ public enum MathOperation {
 	/**
 	 * Addition of two values (+=)
 	 */
-	ADD, 
+	ADD("+="), 
 	
 	/**
 	 * Assignment of a value (=)
 	 */
-	ASSIGN, 
+	ASSIGN("="), 
 	
 	/**
 	 * Division of a value by another value (/=)
 	 */
-	DIVIDE, 
+	DIVIDE("/="), 
 	
 	/**
 	 * The maximum value of two values (>)
 	 */
-	MAX, 
+	MAX(">"), 
 	
 	/**
 	 * The minimum value of two values (<)
 	 */
-	MIN, 
+	MIN("<"), 
 	
 	/**
 	 * Modulo of a value by another value (%=)
 	 */
-	MOD, 
+	MOD("%="), 
 	
 	/**
 	 * Multiplication of a value by another value (*=) 
 	 */
-	MULTIPLY, 
+	MULTIPLY("*="), 
 	
 	/**
 	 * Subtraction of a value by another value (-=)
 	 */
-	SUBTRACT, 
+	SUBTRACT("-="), 
 	
 	/**
 	 * Swap the results of two values (><)
 	 */
-	SWAP;
+	SWAP("><");
+	
+	private final String operator;
+	
+	MathOperation(String operator) {
+		this.operator = operator;
+	}
+	
+	/**
+	 * Returns the operator which represents this MathOperation in a command, such as <code>+=</code>
+	 * @return the operator of this MathOperation
+	 */
+	public String getOperator() {
+		return operator;
+	}
 	
 	/**
 	 * Applies the current MathOperation to two ints
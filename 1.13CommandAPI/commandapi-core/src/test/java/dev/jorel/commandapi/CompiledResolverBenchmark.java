@@ -0,0 +1,286 @@
+package dev.jorel.commandapi;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.Supplier;
+
+import org.bukkit.command.CommandSender;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+
+import dev.jorel.commandapi.arguments.Argument;
+import dev.jorel.commandapi.arguments.CustomArgument;
+import dev.jorel.commandapi.arguments.CustomArgument.CustomArgumentException;
+import dev.jorel.commandapi.arguments.CustomArgument.MessageBuilder;
+import dev.jorel.commandapi.arguments.DoubleArgument;
+import dev.jorel.commandapi.arguments.EntitySelectorArgument;
+import dev.jorel.commandapi.arguments.IntegerArgument;
+import dev.jorel.commandapi.arguments.LiteralArgument;
+import dev.jorel.commandapi.arguments.Location2DArgument;
+import dev.jorel.commandapi.arguments.LocationArgument;
+import dev.jorel.commandapi.arguments.LocationType;
+import dev.jorel.commandapi.arguments.PlayerArgument;
+import dev.jorel.commandapi.arguments.ScoreHolderArgument;
+import dev.jorel.commandapi.arguments.StringArgument;
+import dev.jorel.commandapi.arguments.TeamArgument;
+import dev.jorel.commandapi.nms.NMS;
+
+/**
+ * A standalone benchmark for the resolvers compiled by
+ * {@link CommandAPIHandler#compileResolvers}, which doesn't need a server. The
+ * arguments of a sample command are converted with the compiled resolvers and
+ * with a copy of the switch statement which the CommandAPI used to run for
+ * every argument of every command, which also looked up the command sender for
+ * every argument. Both conversions are also checked to give the same result.
+ * <p>
+ * NMS is replaced by a proxy which answers every call straight away, so this
+ * measures the cost of choosing a conversion and looking up the sender, rather
+ * than the conversions themselves. Run the main method with the number of
+ * iterations as its only (optional) argument, with brigadier and spigot-api on
+ * the classpath.
+ */
+public final class CompiledResolverBenchmark {
+
+	private static final String INPUT = "bench 5 2.5 to Steve";
+
+	// Stops the JIT from removing conversions whose results are never used
+	private static int sink;
+
+	private static NMS nms;
+
+	private CompiledResolverBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+		CommandSender sender = stub(CommandSender.class);
+		nms = stub(NMS.class, (method, methodArgs) -> "getSenderForCommand".equals(method) ? sender : null);
+		Field nmsField = CommandAPIHandler.class.getDeclaredField("nms");
+		nmsField.setAccessible(true);
+		nmsField.set(null, nms);
+
+		LinkedHashMap<String, Argument> arguments = new LinkedHashMap<>();
+		arguments.put("amount", new IntegerArgument());
+		arguments.put("scale", new DoubleArgument());
+		arguments.put("to", new LiteralArgument("to"));
+		arguments.put("name", new StringArgument());
+		arguments.put("pos", new LocationArgument(LocationType.PRECISE_POSITION));
+		arguments.put("target", new PlayerArgument());
+		arguments.put("team", new TeamArgument());
+
+		CommandContext<Object> cmdCtx = parse(sender);
+		ArgumentResolver[] resolvers = CommandAPIHandler.compileResolvers(arguments, null, false);
+
+		Object[] expected = switchArguments(cmdCtx, arguments);
+		Object[] actual = compiledArguments(cmdCtx, resolvers);
+		if (!Arrays.equals(expected, actual)) {
+			System.out.println("Conversions differ for " + INPUT);
+			System.out.println("  switch:   " + Arrays.toString(expected));
+			System.out.println("  compiled: " + Arrays.toString(actual));
+		}
+
+		double switchNanos = measure(iterations, () -> switchArguments(cmdCtx, arguments));
+		double compiledNanos = measure(iterations, () -> compiledArguments(cmdCtx, resolvers));
+		System.out.println(String.format("%9.1f ns/op switch, %9.1f ns/op compiled (%.2fx)  %d arguments",
+				switchNanos, compiledNanos, switchNanos / compiledNanos, arguments.size()));
+	}
+
+	// Parses the sample command, so the simple arguments can be read as they would be on a server
+	private static CommandContext<Object> parse(Object source) {
+		CommandDispatcher<Object> dispatcher = new CommandDispatcher<>();
+		dispatcher.register(LiteralArgumentBuilder.literal("bench")
+				.then(RequiredArgumentBuilder.argument("amount", IntegerArgumentType.integer())
+						.then(RequiredArgumentBuilder.argument("scale", DoubleArgumentType.doubleArg())
+								.then(LiteralArgumentBuilder.literal("to")
+										.then(RequiredArgumentBuilder.argument("name", StringArgumentType.word())
+												.executes(c -> 1))))));
+		return dispatcher.parse(INPUT, source).getContext().build(INPUT);
+	}
+
+	// How a command's executor was given its arguments before resolvers were compiled
+	private static Object[] switchArguments(CommandContext<Object> cmdCtx, LinkedHashMap<String, Argument> args) {
+		List<Object> argList = new ArrayList<>();
+		try {
+			for (Entry<String, Argument> entry : args.entrySet()) {
+				Object result = parseArgument(cmdCtx, entry.getKey(), entry.getValue());
+				if (result != null) {
+					argList.add(result);
+				}
+			}
+		} catch (CommandSyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+		sink += nms.getSenderForCommand(cmdCtx).hashCode();
+		return argList.toArray();
+	}
+
+	// How a command's executor is given its arguments now
+	private static Object[] compiledArguments(CommandContext<Object> cmdCtx, ArgumentResolver[] resolvers) {
+		ExecutionContext ctx = new ExecutionContext(nms, cmdCtx);
+		try {
+			Object[] result = ctx.resolveArguments(resolvers, false);
+			sink += ctx.getSender().hashCode();
+			return result;
+		} catch (CommandSyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// The switch statement from before resolvers were compiled, using the current NMS methods
+	private static Object parseArgument(CommandContext<?> cmdCtx, String key, Argument value)
+			throws CommandSyntaxException {
+		CommandSender sender = nms.getSenderForCommand(cmdCtx);
+		switch (value.getArgumentType()) {
+		case ADVANCEMENT:
+			return nms.getAdvancement(cmdCtx, key);
+		case AXIS:
+			return nms.getAxis(cmdCtx, key);
+		case BIOME:
+			return nms.getBiome(cmdCtx, key);
+		case BLOCKSTATE:
+			return nms.getBlockState(cmdCtx, key);
+		case CHAT:
+			return nms.getChat(cmdCtx, key);
+		case CHATCOLOR:
+			return nms.getChatColor(cmdCtx, key);
+		case CHAT_COMPONENT:
+			return nms.getChatComponent(cmdCtx, key);
+		case CUSTOM:
+			CustomArgument<?> arg = (CustomArgument<?>) value;
+			String customresult = (String) cmdCtx.getArgument(key, String.class);
+			try {
+				return arg.getParser().apply(customresult);
+			} catch (CustomArgumentException e) {
+				throw e.toCommandSyntax(customresult, cmdCtx);
+			} catch (Exception e) {
+				String errorMsg = new MessageBuilder("Error in executing command ").appendFullInput().append(" - ")
+						.appendArgInput().appendHere().toString().replace("%input%", customresult)
+						.replace("%finput%", cmdCtx.getInput());
+				throw new SimpleCommandExceptionType(() -> {
+					return errorMsg;
+				}).create();
+			}
+		case ENCHANTMENT:
+			return nms.getEnchantment(cmdCtx, key);
+		case ENTITY_SELECTOR:
+			EntitySelectorArgument argument = (EntitySelectorArgument) value;
+			return nms.getEntitySelector(cmdCtx, key, argument.getEntitySelector());
+		case ENTITY_TYPE:
+			return nms.getEntityType(cmdCtx, key);
+		case ENVIRONMENT:
+			return nms.getDimension(cmdCtx, key);
+		case FLOAT_RANGE:
+			return nms.getFloatRange(cmdCtx, key);
+		case FUNCTION:
+			return nms.getFunction(cmdCtx, key);
+		case INT_RANGE:
+			return nms.getIntRange(cmdCtx, key);
+		case ITEMSTACK:
+			return nms.getItemStack(cmdCtx, key);
+		case LITERAL:
+			return null;
+		case LOCATION:
+			LocationType locationType = ((LocationArgument) value).getLocationType();
+			return nms.getLocation(cmdCtx, key, locationType, nms.getCommandSenderWorld(sender));
+		case LOCATION_2D:
+			LocationType locationType2d = ((Location2DArgument) value).getLocationType();
+			return nms.getLocation2D(cmdCtx, key, locationType2d, nms.getCommandSenderWorld(sender));
+		case LOOT_TABLE:
+			return nms.getLootTable(cmdCtx, key);
+		case MATH_OPERATION:
+			return nms.getMathOperation(cmdCtx, key);
+		case NBT_COMPOUND:
+			return nms.getNBTCompound(cmdCtx, key);
+		case OBJECTIVE:
+			return nms.getObjective(cmdCtx, key, sender);
+		case OBJECTIVE_CRITERIA:
+			return nms.getObjectiveCriteria(cmdCtx, key);
+		case PARTICLE:
+			return nms.getParticle(cmdCtx, key);
+		case PLAYER:
+			return nms.getPlayer(cmdCtx, key);
+		case POTION_EFFECT:
+			return nms.getPotionEffect(cmdCtx, key);
+		case RECIPE:
+			return nms.getRecipe(cmdCtx, key);
+		case ROTATION:
+			return nms.getRotation(cmdCtx, key);
+		case SCORE_HOLDER:
+			ScoreHolderArgument scoreHolderArgument = (ScoreHolderArgument) value;
+			return scoreHolderArgument.isSingle() ? nms.getScoreHolderSingle(cmdCtx, key)
+					: nms.getScoreHolderMultiple(cmdCtx, key);
+		case SCOREBOARD_SLOT:
+			return nms.getScoreboardSlot(cmdCtx, key);
+		case SIMPLE_TYPE:
+			return cmdCtx.getArgument(key, value.getPrimitiveType());
+		case SOUND:
+			return nms.getSound(cmdCtx, key);
+		case TEAM:
+			return nms.getTeam(cmdCtx, key, sender);
+		case TIME:
+			return nms.getTime(cmdCtx, key);
+		default:
+			return null;
+		}
+	}
+
+	// Returns the average time of a conversion in nanoseconds, after warming it up
+	private static double measure(int iterations, Supplier<Object[]> conversion) {
+		for (int i = 0; i < iterations; i++) {
+			sink += conversion.get().length;
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += conversion.get().length;
+		}
+		return (double) (System.nanoTime() - start) / iterations;
+	}
+
+	@FunctionalInterface
+	private interface Answer {
+		Object answer(String method, Object[] args);
+	}
+
+	private static <T> T stub(Class<T> type) {
+		return stub(type, (method, methodArgs) -> null);
+	}
+
+	// Creates an implementation of an interface which returns the answer's value, or the default value of primitives
+	private static <T> T stub(Class<T> type, Answer answer) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, methodArgs) -> {
+					switch (method.getName()) {
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == methodArgs[0];
+					case "toString":
+						return type.getSimpleName();
+					default:
+						break;
+					}
+					Object result = answer.answer(method.getName(), methodArgs);
+					Class<?> returnType = method.getReturnType();
+					if (result == null && returnType.isPrimitive() && returnType != void.class) {
+						return Array.get(Array.newInstance(returnType, 1), 0);
+					}
+					return result;
+				}));
+	}
+
+}
@@ -0,0 +1,81 @@
+package dev.jorel.commandapi.nms;
+
+import java.util.function.Supplier;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
+
+/**
+ * A standalone benchmark for {@link ComponentConverter}, which doesn't need a
+ * server. For each sample component, converting its JSON tree directly is
+ * compared against writing the tree out to a JSON string and parsing that
+ * string with BungeeCord's ComponentSerializer, which is what the NMS
+ * implementations used to do. Both conversions are also checked to give the
+ * same result.
+ * <p>
+ * Run the main method with the number of iterations as its only (optional)
+ * argument, with Gson and BungeeCord's chat API (both part of spigot-api) on
+ * the classpath.
+ */
+public final class ComponentConverterBenchmark {
+
+	private static final String[] COMPONENTS = {
+		// Plain text, as typed into a ChatArgument without any selectors
+		"{\"text\":\"Hello world\"}",
+		// Formatted text with a click event
+		"{\"text\":\"Click me\",\"color\":\"gold\",\"bold\":true,"
+			+ "\"clickEvent\":{\"action\":\"run_command\",\"value\":\"/help\"}}",
+		// Text with formatted children
+		"{\"text\":\"\",\"extra\":[{\"text\":\"Red \",\"color\":\"red\"},{\"text\":\"green \",\"color\":\"green\"},"
+			+ "{\"text\":\"blue\",\"color\":\"blue\",\"italic\":true}]}",
+		// A hover event is parsed by BungeeCord, but its siblings are still converted
+		"{\"text\":\"Status: \",\"extra\":[{\"text\":\"online\",\"color\":\"green\"},"
+			+ "{\"text\":\" (details)\",\"hoverEvent\":{\"action\":\"show_text\",\"value\":\"Since 10:00\"}}]}",
+		// A translatable component is parsed by BungeeCord on its own
+		"{\"translate\":\"chat.type.text\",\"with\":[\"Steve\",\"Hi\"]}"
+	};
+
+	// Stops the JIT from removing conversions whose results are never used
+	private static int sink;
+
+	private ComponentConverterBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		JsonParser parser = new JsonParser();
+
+		for (String component : COMPONENTS) {
+			JsonElement json = parser.parse(component);
+
+			String expected = ComponentSerializer.toString(ComponentSerializer.parse(component));
+			String actual = ComponentSerializer.toString(ComponentConverter.fromJson(json));
+			if (!expected.equals(actual)) {
+				System.out.println("Conversions differ for " + component);
+				System.out.println("  ComponentSerializer: " + expected);
+				System.out.println("  ComponentConverter:  " + actual);
+			}
+
+			double stringNanos = measure(iterations, () -> ComponentSerializer.parse(json.toString()));
+			double treeNanos = measure(iterations, () -> ComponentConverter.fromJson(json));
+			System.out.println(String.format("%9.1f ns/op string, %9.1f ns/op tree (%.2fx)  %s", stringNanos,
+					treeNanos, stringNanos / treeNanos, component));
+		}
+	}
+
+	// Returns the average time of a conversion in nanoseconds, after warming it up
+	private static double measure(int iterations, Supplier<BaseComponent[]> conversion) {
+		for (int i = 0; i < iterations; i++) {
+			sink += conversion.get().length;
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += conversion.get().length;
+		}
+		return (double) (System.nanoTime() - start) / iterations;
+	}
+
+}